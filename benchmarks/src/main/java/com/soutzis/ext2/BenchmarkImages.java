@@ -0,0 +1,81 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * This class provides the ext2 images that the benchmarks run against. Every image has the same shape, scaled by
+ * its size: a chain of nested directories DEPTH levels deep, a wide directory with 64 entries per MiB of image,
+ * and a single large file that takes up a quarter of the image.
+ * The images are written by ImageGenerator, so no external tools are needed, and are kept in the temporary
+ * directory, so that every benchmark fork can reuse them.
+ *
+ * @author Petros Soutzis
+ */
+final class BenchmarkImages {
+    //The number of levels of the nested directories
+    static final int DEPTH = 32;
+    //The path of the wide directory
+    static final String WIDE = "/wide";
+    //The path of the large file
+    static final String BIG_FILE = "/big.bin";
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * @param sizeMb The size of the image in MiB
+     * @param blockSize The block size of the image in bytes
+     * @return The path of the image, which is built first if it does not exist yet
+     * @throws IOException If the image could not be built
+     */
+    static synchronized Path image(int sizeMb, int blockSize) throws IOException {
+        Path image = Paths.get(System.getProperty("java.io.tmpdir"),
+                "ext2-bench-" + sizeMb + "m-" + blockSize + ".img");
+        if (Files.exists(image))
+            return image;
+
+        Path partial = Paths.get(image + ".partial");
+        int inodes = wideEntries(sizeMb) + DEPTH + 1024;
+        try (ImageGenerator generator = new ImageGenerator(partial.toString(), sizeMb * 1024L * 1024,
+                blockSize, 0, inodes, 128)) {
+            populate(generator, sizeMb);
+        }
+        Files.move(partial, image);
+        return image;
+    }
+
+    /**
+     * @param depth The number of nested directories
+     * @return The absolute path of the directory at that depth
+     */
+    static String deepPath(int depth) {
+        StringBuilder path = new StringBuilder("/deep");
+        for (int i = 1; i <= depth; i++)
+            path.append("/d").append(i);
+        return path.toString();
+    }
+
+    /**
+     * @param sizeMb The size of the image in MiB
+     * @return The number of entries in the wide directory of an image of that size
+     */
+    static int wideEntries(int sizeMb) {
+        return sizeMb * 64;
+    }
+
+    private static void populate(ImageGenerator generator, int sizeMb) throws IOException {
+        int directory = Constants.ROOT_INODE_OFFSET;
+        for (String name : deepPath(DEPTH).substring(1).split("/"))
+            directory = generator.mkdir(directory, name);
+
+        int wide = generator.mkdir(Constants.ROOT_INODE_OFFSET, WIDE.substring(1));
+        for (int i = 0; i < wideEntries(sizeMb); i++)
+            generator.createFile(wide, "entry-" + i, Integer.toString(i).length());
+
+        long bigFileSize = Math.max(1, sizeMb / 4) * 1024L * 1024;
+        generator.createFile(Constants.ROOT_INODE_OFFSET, BIG_FILE.substring(1), bigFileSize);
+    }
+}
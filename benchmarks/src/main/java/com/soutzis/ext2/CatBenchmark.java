@@ -0,0 +1,53 @@
+package com.soutzis.ext2;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures "cat" of the large file (a quarter of the image) through FileInfo.writeFileData, into /dev/null.
+ * The throughput in bytes per second is the file size (sizeMb / 4 MiB) divided by the time per operation.
+ *
+ * @author Petros Soutzis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CatBenchmark extends MountedImage {
+    private Inode bigFile;
+    private FileOutputStream devNull;
+    private FileChannel sink;
+
+    @Override
+    protected void prepare() throws IOException {
+        bigFile = resolve(BenchmarkImages.BIG_FILE);
+        devNull = new FileOutputStream("/dev/null");
+        sink = devNull.getChannel();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeSink() throws IOException {
+        devNull.close();
+    }
+
+    @Benchmark
+    public void cat() throws IOException {
+        FileInfo.writeFileData(bigFile, ext2, sink);
+    }
+}
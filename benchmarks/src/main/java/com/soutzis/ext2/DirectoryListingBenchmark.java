@@ -0,0 +1,45 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures "ls" of the wide directory through FileInfo.readDirectoryData, with warm caches and with a cold Ext2File.
+ * The listing itself is printed to a discarded standard output.
+ *
+ * @author Petros Soutzis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryListingBenchmark extends MountedImage {
+    private Inode wide;
+
+    @Override
+    protected void prepare() throws IOException {
+        wide = resolve(BenchmarkImages.WIDE);
+    }
+
+    @Benchmark
+    public void warm() throws IOException {
+        FileInfo.readDirectoryData(wide, inodeSize, ext2, superblock, groupDescriptor);
+    }
+
+    @Benchmark
+    public void cold() throws IOException {
+        FileInfo.readDirectoryData(wide, inodeSize, coldExt2File(), superblock, groupDescriptor);
+    }
+}
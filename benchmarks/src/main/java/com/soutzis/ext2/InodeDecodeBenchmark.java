@@ -0,0 +1,53 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the decoding of an inode from its raw bytes, and the fetching of an inode by number, both from the inode
+ * cache and from a cold Ext2File (which reads its inode table block).
+ *
+ * @author Petros Soutzis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InodeDecodeBenchmark extends MountedImage {
+    private ByteBuffer rawInode;
+    private int bigFileInode;
+
+    @Override
+    protected void prepare() throws IOException {
+        bigFileInode = resolve(BenchmarkImages.BIG_FILE).getInodeNumber();
+        rawInode = ext2.readBuffer(Inode.getContainingBlock(bigFileInode, superblock, groupDescriptor), inodeSize);
+    }
+
+    @Benchmark
+    public Inode decode() {
+        return new Inode(rawInode.duplicate());
+    }
+
+    @Benchmark
+    public Inode readCached() throws IOException {
+        return Inode.readInode(bigFileInode, inodeSize, ext2, superblock, groupDescriptor);
+    }
+
+    @Benchmark
+    public Inode readCold() throws IOException {
+        return Inode.readInode(bigFileInode, inodeSize, coldExt2File(), superblock, groupDescriptor);
+    }
+}
@@ -0,0 +1,95 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The state that all the benchmarks share: one of the benchmark images, mounted the same way Driver.main() does it.
+ * Standard output is discarded, as the commands that are measured print their results.
+ *
+ * @author Petros Soutzis
+ */
+@State(Scope.Benchmark)
+public class MountedImage {
+    //The size of the image in MiB
+    @Param({"16", "128", "512"})
+    public int sizeMb;
+
+    //The block size of the image in bytes
+    @Param({"1024", "4096"})
+    public int blockSize;
+
+    //Whether the image is memory-mapped, or read through the RandomAccessFile only
+    @Param({"true", "false"})
+    public boolean mapped;
+
+    Volume volume;
+    Ext2File ext2;
+    Superblock superblock;
+    GroupDescriptor groupDescriptor;
+    int inodeSize;
+    Inode rootInode;
+
+    @Setup(Level.Trial)
+    public void mount() throws IOException {
+        String image = BenchmarkImages.image(sizeMb, blockSize).toString();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        volume = new Volume(image, mapped);
+        ext2 = new Ext2File(volume);
+        ByteBuffer superBlockData = ext2.readBuffer(Constants.SUPERBLOCK_OFFSET, Constants.SUPERBLOCK_SIZE);
+        superblock = new Superblock(superBlockData);
+        inodeSize = superblock.getInodeSize();
+        int blockGroupCount = superblock.getBlockGroupCount(superblock.getBlockCount(), superblock.getBlocksPerGroup());
+        groupDescriptor = new GroupDescriptor(
+                ext2.readBuffer(superblock.getGroupDescriptorOffset(),
+                        (long) blockGroupCount * Constants.GDESCRIPTOR_SIZE), blockGroupCount);
+        rootInode = Inode.readInode(Constants.ROOT_INODE_OFFSET, inodeSize, ext2, superblock, groupDescriptor);
+        prepare();
+    }
+
+    /**
+     * Called once the image is mounted, so that a benchmark can prepare its own state. JMH does not guarantee the
+     * order of the setup methods of a class and its superclass, so benchmarks override this instead.
+     * @throws IOException If the image could not be read
+     */
+    protected void prepare() throws IOException {
+    }
+
+    /**
+     * @return A new Ext2File on the same volume, whose caches are all empty
+     * @throws IOException If the superblock could not be read
+     */
+    Ext2File coldExt2File() throws IOException {
+        return new Ext2File(volume);
+    }
+
+    /**
+     * @param path An absolute path on the image
+     * @return The inode of the path, resolved from the root inode
+     * @throws IOException If the image could not be read
+     */
+    Inode resolve(String path) throws IOException {
+        return resolve(path, ext2);
+    }
+
+    /**
+     * @param path An absolute path on the image
+     * @param ext2 The Ext2File to resolve the path with
+     * @return The inode of the path, resolved from the root inode
+     * @throws IOException If the image could not be read
+     */
+    Inode resolve(String path, Ext2File ext2) throws IOException {
+        String[] pathArray = path.substring(1).split("/");
+        Inode root = Inode.readInode(Constants.ROOT_INODE_OFFSET, inodeSize, ext2, superblock, groupDescriptor);
+        return Inode.getContainingInode(pathArray, inodeSize, ext2, root, superblock, groupDescriptor);
+    }
+}
@@ -0,0 +1,48 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Inode.getContainingInode on absolute paths of several depths: with warm caches (a path that was resolved
+ * before), with cold caches (a new Ext2File every time), and for the last entry of the wide directory.
+ *
+ * @author Petros Soutzis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathResolutionBenchmark extends MountedImage {
+    @Param({"1", "8", "32"})
+    public int depth;
+
+    @Benchmark
+    public Inode warm() throws IOException {
+        return resolve(BenchmarkImages.deepPath(depth));
+    }
+
+    @Benchmark
+    public Inode cold() throws IOException {
+        return resolve(BenchmarkImages.deepPath(depth), coldExt2File());
+    }
+
+    @Benchmark
+    public Inode wideDirectoryCold() throws IOException {
+        int last = BenchmarkImages.wideEntries(sizeMb) - 1;
+        return resolve(BenchmarkImages.WIDE + "/entry-" + last, coldExt2File());
+    }
+}
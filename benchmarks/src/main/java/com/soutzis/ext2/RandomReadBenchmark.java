@@ -0,0 +1,82 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures 4 KiB reads at random offsets of the large file, through FileInfo.read (which maps the offset straight
+ * to its block) and through the ranged FileInfo.writeFileData (which walks the pointers of the file from the start
+ * of the pointer block that covers the offset).
+ *
+ * @author Petros Soutzis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomReadBenchmark extends MountedImage {
+    private static final int LENGTH = 4096;
+    private Inode bigFile;
+    private long[] offsets;
+    private int next;
+    private ByteBuffer buffer;
+    private WritableByteChannel bufferChannel;
+
+    @Override
+    protected void prepare() throws IOException {
+        bigFile = resolve(BenchmarkImages.BIG_FILE);
+        //a fixed sequence of random offsets, the same for every run
+        Random random = new Random(42);
+        offsets = new long[4096];
+        for (int i = 0; i < offsets.length; i++)
+            offsets[i] = (long) (random.nextDouble() * (bigFile.getSize() - LENGTH));
+        buffer = ByteBuffer.allocate(LENGTH);
+        bufferChannel = Channels.newChannel(new OutputStream() {
+            @Override
+            public void write(int b) {
+                buffer.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                buffer.put(b, off, len);
+            }
+        });
+    }
+
+    private long nextOffset() {
+        next = (next + 1) & (offsets.length - 1);
+        return offsets[next];
+    }
+
+    @Benchmark
+    public ByteBuffer read() throws IOException {
+        buffer.clear();
+        FileInfo.read(bigFile, ext2, nextOffset(), buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer walk() throws IOException {
+        buffer.clear();
+        FileInfo.writeFileData(bigFile, ext2, bufferChannel, nextOffset(), LENGTH);
+        return buffer;
+    }
+}
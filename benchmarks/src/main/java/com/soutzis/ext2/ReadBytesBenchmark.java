@@ -0,0 +1,58 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures single-block reads at random offsets of the image, through Ext2File.readBytes (which always copies into
+ * a new array) and through Ext2File.readBuffer (which returns a view of the image if it is memory-mapped).
+ *
+ * @author Petros Soutzis
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBytesBenchmark extends MountedImage {
+    private long[] offsets;
+    private int next;
+
+    @Override
+    protected void prepare() {
+        //a fixed sequence of random block-aligned offsets, the same for every run
+        Random random = new Random(42);
+        long blocks = volume.getSize() / ext2.getBlockSize();
+        offsets = new long[4096];
+        for (int i = 0; i < offsets.length; i++)
+            offsets[i] = (long) (random.nextDouble() * blocks) * ext2.getBlockSize();
+    }
+
+    private long nextOffset() {
+        next = (next + 1) & (offsets.length - 1);
+        return offsets[next];
+    }
+
+    @Benchmark
+    public byte[] readBytes() throws IOException {
+        return ext2.readBytes(nextOffset(), ext2.getBlockSize());
+    }
+
+    @Benchmark
+    public ByteBuffer readBuffer() throws IOException {
+        return ext2.readBuffer(nextOffset(), ext2.getBlockSize());
+    }
+}
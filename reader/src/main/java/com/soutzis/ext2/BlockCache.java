@@ -0,0 +1,167 @@
+package com.soutzis.ext2;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *This class is a bounded cache of metadata blocks (inode tables, directories, pointer blocks), keyed by block number.
+ *File data is never cached here: it is copied straight from the volume (with transferTo or views of the mapped
+ *image), so reading a large file can never push out the blocks that are needed to navigate the filesystem.
+ *The pool uses a simplified 2Q policy: a block first enters a small FIFO probation queue and is only promoted
+ *to the protected LRU queue if it is requested again while still on probation. A one-off scan over many blocks
+ *will therefore only cycle the probation queue.
+ *@author Petros Soutzis
+ */
+class BlockCache {
+    private final Pool metadata;
+
+    /**
+     *Constructor of the BlockCache class
+     *@param metadataCapacity the maximum number of bytes that the metadata pool will hold
+     */
+    BlockCache(long metadataCapacity) {
+        metadata = new Pool(metadataCapacity);
+    }
+
+    /**
+     *@param blockNumber the number of the block to look for
+     *@return a view of the cached block, or null if the block is not cached
+     */
+    ByteBuffer get(long blockNumber) {
+        ByteBuffer block = metadata.get(blockNumber);
+
+        //every caller gets its own view, so that positions can not interfere with each other
+        return block == null ? null : block.duplicate().order(block.order());
+    }
+
+    /**
+     *@param blockNumber the number of the block that will be cached
+     *@param block the contents of the block
+     */
+    void put(long blockNumber, ByteBuffer block) {
+        metadata.put(blockNumber, block.asReadOnlyBuffer().order(block.order()));
+    }
+
+    /**
+     *@return the metadata pool
+     */
+    Pool getMetadataPool() {
+        return metadata;
+    }
+
+    @Override
+    public String toString() {
+        return "metadata cache: " + metadata;
+    }
+
+    /**
+     *A single 2Q pool, sized in bytes. A quarter of the capacity is reserved for the probation queue.
+     */
+    static class Pool {
+        private final long capacity;
+        private final long probationCapacity;
+        //insertion-ordered, so that the eldest entry is the first one that was admitted
+        private final LinkedHashMap<Long, ByteBuffer> probation = new LinkedHashMap<>(16, 0.75f, false);
+        //access-ordered, so that the eldest entry is the least recently used one
+        private final LinkedHashMap<Long, ByteBuffer> protectedLru = new LinkedHashMap<>(16, 0.75f, true);
+        private long probationBytes, protectedBytes;
+        private long hits, misses, evictions;
+
+        /**
+         *@param capacity the maximum number of bytes that this pool will hold
+         */
+        Pool(long capacity) {
+            this.capacity = capacity;
+            this.probationCapacity = capacity / 4;
+        }
+
+        private synchronized ByteBuffer get(long blockNumber) {
+            ByteBuffer block = protectedLru.get(blockNumber);
+
+            if(block == null) {
+                block = probation.remove(blockNumber);
+                //a second request while on probation shows that the block is reused, so it is promoted
+                if(block != null) {
+                    probationBytes -= block.capacity();
+                    protectedLru.put(blockNumber, block);
+                    protectedBytes += block.capacity();
+                    evict();
+                }
+            }
+
+            if(block == null)
+                misses++;
+            else
+                hits++;
+
+            return block;
+        }
+
+        private synchronized void put(long blockNumber, ByteBuffer block) {
+            if(block.capacity() > capacity || protectedLru.containsKey(blockNumber))
+                return;
+
+            ByteBuffer previous = probation.put(blockNumber, block);
+            if(previous != null)
+                probationBytes -= previous.capacity();
+            probationBytes += block.capacity();
+            evict();
+        }
+
+        /**
+         *Drops blocks until both queues fit. The probation queue is trimmed first, so that the protected
+         *queue only loses blocks once the pool as a whole is full.
+         */
+        private void evict() {
+            Iterator<Map.Entry<Long, ByteBuffer>> it = probation.entrySet().iterator();
+            while(it.hasNext() && (probationBytes > probationCapacity || probationBytes + protectedBytes > capacity)) {
+                probationBytes -= it.next().getValue().capacity();
+                it.remove();
+                evictions++;
+            }
+
+            it = protectedLru.entrySet().iterator();
+            while(it.hasNext() && probationBytes + protectedBytes > capacity) {
+                protectedBytes -= it.next().getValue().capacity();
+                it.remove();
+                evictions++;
+            }
+        }
+
+        /**
+         *@return the number of requests that were answered from this pool
+         */
+        synchronized long getHits() {
+            return hits;
+        }
+
+        /**
+         *@return the number of requests for blocks that were not in this pool
+         */
+        synchronized long getMisses() {
+            return misses;
+        }
+
+        /**
+         *@return the number of blocks that were dropped from this pool to make room for others
+         */
+        synchronized long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         *@return the number of bytes currently held by this pool
+         */
+        synchronized long getSize() {
+            return probationBytes + protectedBytes;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%d/%d bytes, %d hits, %d misses, %d evictions",
+                    probationBytes + protectedBytes, capacity, hits, misses, evictions);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ *This class maps the logical blocks of an inode straight to their physical blocks, for random access reads.
+ *The slot of the inode that covers a logical block (direct, indirect, double or triple indirect) and the index
+ *within every pointer block on the way are computed with shifts, so only the pointer blocks on the path to that
+ *block are read: at most three, for a block under the triple indirect pointer.
+ *The pointer blocks of the last path that was followed are kept, one per level, so reading the next block of a
+ *file (or any other block under the same pointer blocks) does not read or even look up any pointer block.
+ *Every inode has its own map (see Inode.getBlockMap()). The map is safe to share between threads.
+ *@author Petros Soutzis
+ */
+class BlockMap {
+    //The number of levels of pointer blocks, under the triple indirect pointer
+    private static final int MAX_DEPTH = 3;
+
+    private final int[] blockPointers;
+    //The number of each pointer block of the last path that was followed (by its depth), and its contents
+    private final long[] pathBlocks = new long[MAX_DEPTH];
+    private final ByteBuffer[] path = new ByteBuffer[MAX_DEPTH];
+    private long pathReads; //the number of pointer blocks that had to be fetched, as they were not on the last path
+
+    /**
+     *Constructor of the BlockMap class
+     *@param blockPointers the block pointers of the inode
+     */
+    BlockMap(int[] blockPointers) {
+        this.blockPointers = blockPointers;
+    }
+
+    /**
+     *Finds the physical block that holds a logical block of the file.
+     *@param logicalBlock the index of the block within the file
+     *@param ext2 the disk, which the pointer blocks are read from
+     *@throws IOException if a pointer block could not be read
+     *@return the number of the block on the volume, or 0 if the logical block is a hole (or past the last block
+     *that the pointers can address)
+     */
+    synchronized long map(long logicalBlock, Ext2File ext2) throws IOException {
+        if(logicalBlock < 0)
+            return 0;
+        if(logicalBlock < Constants.DIRECT_POINTERS_COUNT)
+            return Integer.toUnsignedLong(blockPointers[(int) logicalBlock]);
+
+        //Each pointer block holds 2^shift pointers, so each index is a group of shift bits of the logical block
+        int shift = Integer.numberOfTrailingZeros(ext2.getBlockSize() / Constants.BYTE_LENGTH);
+        long block = logicalBlock - Constants.DIRECT_POINTERS_COUNT;
+        for(int depth = 1; depth <= MAX_DEPTH; depth++) {
+            long span = 1L << (shift * depth); //the number of blocks that the pointer of this depth covers
+            if(block < span) {
+                long physical = Integer.toUnsignedLong(blockPointers[Constants.INDIRECT_POINTER + depth - 1]);
+                for(int level = 0; level < depth && physical != 0; level++) {
+                    int index = (int) (block >>> (shift * (depth - 1 - level))) & ((1 << shift) - 1);
+                    physical = readPointer(level, physical, index, ext2);
+                }
+                return physical;
+            }
+            block -= span;
+        }
+
+        return 0;
+    }
+
+    /**
+     *Reads a pointer from a pointer block, which is only fetched if it is not the block of the same level of the
+     *last path.
+     */
+    private long readPointer(int level, long blockNumber, int index, Ext2File ext2) throws IOException {
+        if(path[level] == null || pathBlocks[level] != blockNumber) {
+            path[level] = ext2.readMetadataBlock(blockNumber, Metrics.INDIRECT);
+            pathBlocks[level] = blockNumber;
+            pathReads++;
+        }
+
+        return Integer.toUnsignedLong(path[level].getInt(index * Constants.BYTE_LENGTH));
+    }
+
+    /**
+     *@return the number of pointer blocks that were fetched, as they were not on the last path that was followed
+     */
+    synchronized long getPathReads() {
+        return pathReads;
+    }
+}
@@ -0,0 +1,239 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class holds the command name literals for each of the command supported by this project
+ * (ls, cd, exit, cat, find, scan, xxd, get, stats, df, lsdel). No command flag support has been implemented, apart
+ * from the predicates of find, the range options of xxd, the host directory of get, the "reset" argument of stats
+ * and the -g option of df.
+ *
+ * @author psoutzis
+ */
+
+class Command{
+    static final String CD = "cd", EXIT = "exit", LS = "ls", CAT="cat", FIND = "find", SCAN = "scan",
+            XXD = "xxd", GET = "get", STATS = "stats", DF = "df", LSDEL = "lsdel";
+    //Every command, so that only the runs of real commands are timed
+    static final Set<String> NAMES = new HashSet<>(Arrays.asList(CD, EXIT, LS, CAT, FIND, SCAN, XXD, GET, STATS,
+            DF, LSDEL));
+
+    /**
+     * Is called when user types exit. It prints an informative message and then exits the running process
+     */
+    static void doExit(){
+        System.out.print("\nEXT2 filesystem image scanning was terminated by the user.\n");
+        System.exit(0);
+    }
+
+    /**
+     * Used for the "ls" command
+     * @param inode The inode to use
+     * @param inodeSize The inode size
+     * @param ext2 The Ext2File instance to provide a bytebuffer to use
+     * @param superblock The superblock instance
+     * @param groupDescriptor The group descriptor instance
+     * @return false if the directory could not be read, true otherwise
+     */
+    static boolean doLs(Inode inode, int inodeSize, Ext2File ext2, Superblock superblock,
+                        GroupDescriptor groupDescriptor){
+        try {
+            FileInfo.readDirectoryData(inode, inodeSize, ext2, superblock, groupDescriptor);
+            return true;
+        } catch (IOException e) {
+            System.out.println("ls: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Used for the "cat" command
+     * @param inode The inode to use
+     * @param inodeSize The inode size
+     * @param ext2 The Ext2File instance to provide a bytebuffer to use
+     * @param superblock The superblock instance
+     * @param groupDescriptor The group descriptor instance
+     * @param path The path the user issued "cat" to
+     * @return false if the path is not a regular file or could not be read, true otherwise
+     */
+    static boolean doCat(Inode inode, int inodeSize, Ext2File ext2, Superblock superblock,
+                         GroupDescriptor groupDescriptor, String path){
+        try {
+            return FileInfo.readFileData(inode, inodeSize, ext2, superblock, groupDescriptor, path);
+        } catch (IOException e) {
+            System.out.println("cat: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Used for the "xxd" command, which prints a hex dump of a file. The range to dump is given with "-s offset"
+     * (a negative offset counts back from the end of the file) and "-l length", in decimal or in hex (0x...).
+     * @param inode The inode to use
+     * @param ext2 The Ext2File instance to provide a bytebuffer to use
+     * @param path The path the user issued "xxd" to
+     * @param args The options that the user entered after the path
+     * @return false if the options are not valid, or the path is not a regular file or could not be read,
+     * true otherwise
+     */
+    static boolean doXxd(Inode inode, Ext2File ext2, String path, String[] args){
+        long offset = 0, length = Long.MAX_VALUE;
+        try {
+            for(int i = 0; i < args.length; i += 2) {
+                if(i + 1 == args.length || !(args[i].equals("-s") || args[i].equals("-l")))
+                    throw new IllegalArgumentException(args[i]);
+                if(args[i].equals("-s"))
+                    offset = Long.decode(args[i + 1]);
+                else
+                    length = Long.decode(args[i + 1]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("xxd: invalid option " + e.getMessage() + " (usage: xxd path [-s offset] [-l length])");
+            return false;
+        }
+        if(offset < 0)
+            offset = Math.max(0, inode.getSize() + offset);
+        if(length < 0) {
+            System.out.println("xxd: invalid length " + length);
+            return false;
+        }
+
+        try {
+            return FileInfo.readHexData(inode, ext2, path, offset, length);
+        } catch (IOException e) {
+            System.out.println("xxd: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Used for the "get" command, which copies a file or a directory tree out of the image, into a host directory
+     * @param inode The inode to copy
+     * @param name The name of the path the user issued "get" to
+     * @param args The arguments that the user entered after the path (only the host directory)
+     * @param inodeSize The inode size
+     * @param ext2 The Ext2File instance to provide a bytebuffer to use
+     * @param superblock The superblock instance
+     * @param groupDescriptor The group descriptor instance
+     * @return false if the arguments are not valid or anything could not be copied, true otherwise
+     */
+    static boolean doGet(Inode inode, String name, String[] args, int inodeSize, Ext2File ext2,
+                         Superblock superblock, GroupDescriptor groupDescriptor){
+        if(args.length != 1) {
+            System.out.println("get: usage: get path host-directory");
+            return false;
+        }
+        return Extract.get(inode, name, args[0], inodeSize, ext2, superblock, groupDescriptor);
+    }
+
+    /**
+     * Used for the "find" command
+     * @param inode The inode to start from
+     * @param path The path the user issued "find" to
+     * @param args The predicates that the user entered after the path
+     * @param inodeSize The inode size
+     * @param ext2 The Ext2File instance to provide a bytebuffer to use
+     * @param superblock The superblock instance
+     * @param groupDescriptor The group descriptor instance
+     * @return false if the predicates are not valid or a directory could not be read, true otherwise
+     */
+    static boolean doFind(Inode inode, String path, String[] args, int inodeSize, Ext2File ext2,
+                          Superblock superblock, GroupDescriptor groupDescriptor){
+        return Find.find(inode, path, args, inodeSize, ext2, superblock, groupDescriptor);
+    }
+
+    /**
+     * Used for the "stats" command, which prints the metrics of the reads, path lookups and commands, and the state of
+     * every cache. "stats reset" sets the metrics back to zero instead.
+     * @param ext2 The Ext2File instance, which holds the metrics and the caches
+     * @param args The arguments that the user entered after the command (only "reset")
+     * @return false if the arguments are not valid, true otherwise
+     */
+    static boolean doStats(Ext2File ext2, String[] args){
+        if(args.length == 1 && args[0].equals("reset")) {
+            ext2.getMetrics().reset();
+            return true;
+        }
+        if(args.length > 0) {
+            System.out.println("stats: usage: stats [reset]");
+            return false;
+        }
+        System.out.print(getStats(ext2));
+        return true;
+    }
+
+    /**
+     * @param ext2 The Ext2File instance, which holds the metrics and the caches
+     * @return The metrics of the reads, path lookups and commands, followed by the state of every cache
+     */
+    static String getStats(Ext2File ext2){
+        return ext2.getMetrics() + "\n" + ext2.getBlockCache() + "\n" + ext2.getInodeCache() + "\n" +
+                ext2.getDentryCache() + "\n" + ext2.getDirectoryIndexCache() + "\n" + ext2.getHTree() + "\n" +
+                ext2.getReadahead() + "\n";
+    }
+
+    /**
+     * Used for the "df" command, which prints the used and free blocks and inodes of the volume, as counted from the
+     * bitmaps of every block group, and where they disagree with the group descriptors and the superblock.
+     * "-g" prints the usage of every block group as well.
+     * @param args The options that the user entered after the command (or after its path, which is ignored)
+     * @param ext2 The Ext2File instance to provide a bytebuffer to use
+     * @param superblock The superblock instance
+     * @param groupDescriptor The group descriptor instance
+     * @return false if the options are not valid or a bitmap could not be read, true otherwise
+     */
+    static boolean doDf(String[] args, Ext2File ext2, Superblock superblock, GroupDescriptor groupDescriptor){
+        boolean groups = args.length == 1 && args[0].equals("-g");
+        if(args.length > 0 && !groups) {
+            System.out.println("df: usage: df [-g]");
+            return false;
+        }
+        try {
+            SpaceUsage.scan(ext2, superblock, groupDescriptor)
+                    .print(superblock.getVolumeName().replace("\0", "").trim(), groups);
+            return true;
+        } catch (IOException e) {
+            System.out.println("df: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Used for the "lsdel" command, which lists the deleted inodes whose blocks may still be recovered, as they are
+     * found by scanning the inode tables of all the block groups in parallel.
+     * @param ext2 The Ext2File instance to provide a bytebuffer to use
+     * @param superblock The superblock instance
+     * @param groupDescriptor The group descriptor instance
+     * @return false if a bitmap or an inode table could not be read, true otherwise
+     */
+    static boolean doLsdel(Ext2File ext2, Superblock superblock, GroupDescriptor groupDescriptor){
+        try {
+            DeletedInodes.scan(ext2, superblock, groupDescriptor, System.out);
+            return true;
+        } catch (IOException e) {
+            System.out.println("lsdel: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Used for the "scan" command, which prints statistics over every inode of the volume
+     * @param ext2 The Ext2File instance to provide a bytebuffer to use
+     * @param superblock The superblock instance
+     * @param groupDescriptor The group descriptor instance
+     * @return false if an inode table could not be read, true otherwise
+     */
+    static boolean doScan(Ext2File ext2, Superblock superblock, GroupDescriptor groupDescriptor){
+        try {
+            InodeTableScanner.scan(InodeStatistics::new, ext2, superblock, groupDescriptor).print();
+            return true;
+        } catch (IOException e) {
+            System.out.println("scan: " + e.getMessage());
+            return false;
+        }
+    }
+
+}
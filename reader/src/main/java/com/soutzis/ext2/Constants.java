@@ -0,0 +1,117 @@
+package com.soutzis.ext2;
+
+/**
+ * This class contains constants (macros) that are used throughout the program.
+ *
+ * @author Petros Soutzis
+ */
+public class Constants {
+
+    //The magic number, which is always 0xef53
+    static final short MAGIC_NUM_VALUE = (short) 0xef53;
+    //The smallest block size; the actual block size of a volume is this, shifted left by s_log_block_size
+    static final int MIN_BLOCK_SIZE = 1024;
+    //The largest block size that is supported (the largest that ext2 allows)
+    static final int MAX_BLOCK_SIZE = 65536;
+    //The offset of the inode that holds all the information about other inodes.
+    static final int ROOT_INODE_OFFSET = 2;
+    //The offset byte, at which the Superblock starts at, whatever the block size is
+    static final long SUPERBLOCK_OFFSET = 1024;
+    //The number of bytes of the Superblock
+    static final int SUPERBLOCK_SIZE = 1024;
+    //The size of each group descriptor in the Group Descriptor table
+    static final int GDESCRIPTOR_SIZE = 32;
+    //equivalent of 32 bits in bytes (an int)
+    static final int BYTE_LENGTH = 4;
+    //equivalent of 16 bits in bytes (a short)
+    static final int SHORT_LENGTH = 2;
+    //Root symbol
+    static final String ROOT = "/";
+    //The number of bytes that the block cache will hold for metadata blocks (inode tables, directories, pointers)
+    static final long METADATA_CACHE_SIZE = 16L * 1024 * 1024;
+    //The number of decoded inodes that the inode cache will hold
+    static final int INODE_CACHE_SIZE = 8192;
+    //The number of (parent inode, name) entries that the dentry cache will hold
+    static final int DENTRY_CACHE_SIZE = 16384;
+    //The number of directory entries that the in-memory directory indexes will hold altogether
+    static final long DIRECTORY_INDEX_CACHE_SIZE = 1000000;
+    //The largest number of bytes that a run of contiguous blocks will be read with, in a single I/O
+    static final int DEFAULT_MAX_IO_SIZE = 1024 * 1024;
+    //The number of bytes that are first fetched ahead of a sequential reader of a file, and the most that are fetched
+    //at once, as the window doubles while the reads stay sequential
+    static final int READAHEAD_MIN_WINDOW = 128 * 1024;
+    static final int READAHEAD_MAX_WINDOW = 8 * 1024 * 1024;
+    //The size of the pages of the operating system, or at least the distance between two bytes that are always in
+    //different pages
+    static final int PAGE_SIZE = 4096;
+
+
+    /*Offset Constants for extracting the information from the SuperBlock*/
+    static final int S_MAGIC_OFFSET = 56;
+    static final int S_INODE_COUNT_OFFSET = 0;
+    static final int S_BLOCK_COUNT_OFFSET = 4;
+    static final int S_R_BLOCKS_COUNT_OFFSET = 8;
+    static final int S_FREE_BLOCKS_COUNT_OFFSET = 12;
+    static final int S_FREE_INODES_COUNT_OFFSET = 16;
+    static final int S_FIRST_DATA_BLOCK_OFFSET = 20;
+    static final int S_LOG_BLOCK_SIZE_OFFSET = 24;
+    static final int S_BLOCKS_PER_GROUP_OFFSET = 32;
+    static final int S_INODES_PER_GROUP_OFFSET = 40;
+    static final int S_INODE_SIZE_OFFSET = 88;
+    static final int S_FILESYSTEM_NAME_OFFSET = 120;
+    static final int S_FILESYSTEM_NAME_LENGTH = 16;
+    static final int S_FEATURE_COMPAT_OFFSET = 92;
+    static final int S_HASH_SEED_OFFSET = 236; // 4 ints, the seed of the directory hash
+    static final int S_FLAGS_OFFSET = 352;
+
+    /*Superblock flags and features*/
+    static final int FEATURE_COMPAT_DIR_INDEX = 0x0020; // Large directories may have a hash tree index
+    static final int FLAGS_SIGNED_HASH = 0x0001; // The directory hash treats the bytes of names as signed
+    static final int FLAGS_UNSIGNED_HASH = 0x0002; // The directory hash treats the bytes of names as unsigned
+
+    static final int INODE_POINTERS_COUNT = 15; // The inode has 15 pointers that point to data
+    static final int DIRECT_POINTERS_COUNT = 12; // The first 12 pointers point directly to data blocks
+    static final int INDIRECT_POINTER = 12; // Points to a block of pointers to data blocks
+    static final int DOUBLE_INDIRECT_POINTER = 13; // Points to a block of pointers to indirect blocks
+    static final int TRIPLE_INDIRECT_POINTER = 14; // Points to a block of pointers to double indirect blocks
+    static final int NUMBER_OF_GROUPS = 3; // root, user, other
+
+    /*INODE FILE MODES*/
+    static final int IFMT = 0xF000;   // File type mask
+    static final int IFSCK = 0xC000;  // Socket file mode
+    static final int IFLNK = 0xA000;  // Symbolic Link file mode
+    static final int IFREG = 0x8000;  // Regular File file mode
+    static final int IFBLK = 0x6000;  // Block Device file mode
+    static final int IFDIR = 0x4000;  // Directory file mode
+    static final int IFCHR = 0x2000;  // Character Device file mode
+    static final int IFIFO = 0x1000;  // FIFO file mode
+    static final int ISUID = 0x0800;  // Set process User ID file mode
+    static final int ISGID = 0x0400;  // Set process Group ID file mode
+    static final int ISVTX = 0x0200;  // Sticky bit file mode
+    static final int IRUSR = 0x0100;  // User readBytes file mode
+    static final int IWUSR = 0x0080;  // User write file mode
+    static final int IXUSR = 0x0040;  // User execute file mode
+    static final int IRGRP = 0x0020;  // Group readBytes file mode
+    static final int IWGRP = 0x0010;  // Group write file mode
+    static final int IXGRP = 0x0008;  // Group execute file mode
+    static final int IROTH = 0x0004;  // Others readBytes file mode
+    static final int IWOTH = 0x0002;  // Others write file mode
+    static final int IXOTH = 0x0001;  // Others execute file mode
+
+    /*INODE FLAGS*/
+    static final int INDEX_FL = 0x1000; // The directory has a hash tree index
+
+    /*Inode Information Offset Constants*/
+    static final int I_MODE_OFFSET = 0;
+    static final int I_UID_OFFSET = 2;
+    static final int I_SIZE_LOWER_OFFSET = 4;
+    static final int I_ACCESS_TIME_OFFSET = 8;
+    static final int I_CREATION_TIME_OFFSET = 12;
+    static final int I_MODIFICATION_TIME_OFFSET = 16;
+    static final int I_DELETION_TIME_OFFSET = 20;
+    static final int I_GID_OFFSET = 24;
+    static final int I_LINKS_COUNT_OFFSET = 26;
+    static final int I_FLAGS_OFFSET = 32;
+    static final int I_BLOCK_POINTERS_OFFSET = 40;
+    static final int I_SIZE_UPPER_OFFSET = 108;
+}
@@ -0,0 +1,229 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *This class implements the "lsdel" command, which lists the deleted inodes whose data may still be recovered, like
+ *debugfs's lsdel does. An inode is deleted if it is free in the inode bitmap of its block group and has a deletion
+ *time. The data of a deleted inode can only be found through its block pointers, and is only still on the volume for
+ *as long as its blocks are not reused, so an inode is listed if all of its block pointers are within the volume and
+ *at least one of the blocks that they point to is still free in the block bitmaps. Current Linux kernels truncate a
+ *file before they free its inode, which zeroes its block pointers and its size, so the inodes that they deleted are
+ *usually not listed; the ones that are come from older kernels, other implementations, or interrupted deletes.
+ *The inode tables of the block groups are read sequentially (see InodeTableScanner.scanGroup()), and the block
+ *groups are scanned in parallel on a ForkJoin pool. A group whose inode bitmap has no free inodes holds no deleted
+ *inodes, so its inode table is not read at all. Only the pointers in the inodes themselves are checked, so the
+ *scan never reads an indirect block.
+ *The results are streamed: the inodes of every block group are printed as soon as the group and all the groups
+ *before it have been scanned, so they come out in inode number order while the rest of the volume is scanned.
+ *@author Petros Soutzis
+ */
+class DeletedInodes {
+    //The work is bound by I/O rather than by the CPU, so there are more workers than CPUs, but never unboundedly many
+    private static final int WORKERS = Math.min(32, Runtime.getRuntime().availableProcessors() * 2);
+    private static final ForkJoinPool POOL = new ForkJoinPool(WORKERS);
+    //The number of the first blocks of a deleted inode that are printed
+    private static final int FIRST_BLOCKS = 4;
+
+    private final Ext2File ext2;
+    private final Superblock superblock;
+    private final GroupDescriptor groupDescriptor;
+    private final PrintStream out;
+    //The lines of every block group that has been scanned, until all the groups before it are printed
+    private final String[] lines;
+    private int nextGroup; //the first block group that has not been printed yet
+    private long found, skippedGroups;
+
+    private DeletedInodes(Ext2File ext2, Superblock superblock, GroupDescriptor groupDescriptor, PrintStream out) {
+        this.ext2 = ext2;
+        this.superblock = superblock;
+        this.groupDescriptor = groupDescriptor;
+        this.out = out;
+        lines = new String[groupDescriptor.getGroupCount()];
+    }
+
+    /**
+     *Scans the inode tables of all the block groups in parallel, and prints every deleted inode that looks
+     *recoverable, followed by the number of them.
+     *@param ext2 The disk
+     *@param superblock The superblock
+     *@param groupDescriptor The group descriptor
+     *@param out the stream that the inodes are printed to
+     *@throws IOException if a bitmap or an inode table could not be read
+     */
+    static void scan(Ext2File ext2, Superblock superblock, GroupDescriptor groupDescriptor, PrintStream out)
+            throws IOException {
+        long start = System.nanoTime();
+        DeletedInodes scan = new DeletedInodes(ext2, superblock, groupDescriptor, out);
+        out.format("%10s %-12s %14s %9s  %-28s  %s%n", "Inode", "Mode", "Size", "Blocks", "Time deleted",
+                "First blocks");
+        try {
+            POOL.invoke(new GroupTask(0, groupDescriptor.getGroupCount(), scan));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.format("%n%d deleted inodes found in %d block groups (%d of them without free inodes) in %d ms%n",
+                scan.found, scan.lines.length, scan.skippedGroups,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     *Scans the inode table of a single block group, and prints its deleted inodes along with the groups before it,
+     *if they have all been scanned.
+     */
+    private void scanGroup(int group) throws IOException {
+        int inodesPerGroup = superblock.getInodesPerGroup();
+        int inodes = (int) Math.min(inodesPerGroup, superblock.getInodeCount() - (long) group * inodesPerGroup);
+        ByteBuffer inodeBitmap = ext2.readBuffer(groupDescriptor.getInodeBitmap(group) * superblock.getBlockSize(),
+                (inodes + 7) / 8, Metrics.BITMAP);
+
+        StringBuilder sb = new StringBuilder();
+        int count = 0;
+        boolean skipped = SpaceUsage.countBits(inodeBitmap, inodes) == inodes;
+        if(!skipped) {
+            //the candidates are only checked against the block bitmaps after the table is read, so that the table is
+            //read in one sequential pass
+            Candidates candidates = new Candidates(group * inodesPerGroup, inodeBitmap);
+            InodeTableScanner.scanGroup(group, candidates, ext2, superblock, groupDescriptor);
+            for(int i = 0; i < candidates.inodes.size(); i++) {
+                if(format(candidates.numbers.get(i), candidates.inodes.get(i), sb))
+                    count++;
+            }
+        }
+        complete(group, sb.toString(), count, skipped);
+    }
+
+    /**
+     *Appends the line of a deleted inode, if its block pointers look recoverable.
+     *@return true if the inode was appended
+     */
+    private boolean format(int inodeNumber, Inode inode, StringBuilder sb) throws IOException {
+        int pointers = 0, free = 0, printed = 0;
+        StringBuilder firstBlocks = new StringBuilder();
+        for(int i = 0; i < Constants.INODE_POINTERS_COUNT; i++) {
+            long block = Integer.toUnsignedLong(inode.getBlockPointers()[i]);
+            if(block == 0)
+                continue;
+            //a pointer outside of the volume can only come from an inode that was overwritten, or a fast symbolic
+            //link, whose target is kept in place of the pointers
+            if(block < superblock.getFirstDataBlock() || block >= superblock.getBlockCount())
+                return false;
+            pointers++;
+            if(!isBlockInUse(block))
+                free++;
+            if(i < Constants.DIRECT_POINTERS_COUNT && printed < FIRST_BLOCKS) {
+                firstBlocks.append(block).append(' ');
+                printed++;
+            }
+        }
+        if(free == 0)
+            return false;
+
+        if(pointers > printed)
+            firstBlocks.append("...");
+        sb.append(String.format("%10d %-12s %14d %4d/%-4d  %-28s  %s%n", inodeNumber, inode.readPermissions(),
+                inode.getSize(), free, pointers, new Date(inode.getDeletionTime() * 1000),
+                firstBlocks.toString().trim()));
+        return true;
+    }
+
+    /**
+     *@return true if the block is in use in the block bitmap of its group
+     */
+    private boolean isBlockInUse(long block) throws IOException {
+        long index = block - superblock.getFirstDataBlock();
+        int group = (int) (index / superblock.getBlocksPerGroup());
+        int bit = (int) (index % superblock.getBlocksPerGroup());
+        ByteBuffer bitmap = ext2.readMetadataBlock(groupDescriptor.getBlockBitmap(group), Metrics.BITMAP);
+        return (bitmap.get(bit >>> 3) & (1 << (bit & 7))) != 0;
+    }
+
+    /**
+     *Keeps the lines of a block group that has been scanned, and prints them along with the lines of the groups
+     *after it, once every group before it has been printed.
+     */
+    private synchronized void complete(int group, String groupLines, int count, boolean skipped) {
+        lines[group] = groupLines;
+        found += count;
+        if(skipped)
+            skippedGroups++;
+        while(nextGroup < lines.length && lines[nextGroup] != null) {
+            out.print(lines[nextGroup]);
+            lines[nextGroup++] = null;
+        }
+        out.flush();
+    }
+
+    /**
+     *The visitor of the inode table of a block group, which keeps the inodes that are free in the inode bitmap and
+     *have a deletion time.
+     */
+    private static class Candidates implements InodeTableScanner.InodeVisitor<Candidates> {
+        private final int firstInode; //the number of the inode before the first inode of the group
+        private final ByteBuffer inodeBitmap;
+        private final List<Integer> numbers = new ArrayList<>();
+        private final List<Inode> inodes = new ArrayList<>();
+
+        private Candidates(int firstInode, ByteBuffer inodeBitmap) {
+            this.firstInode = firstInode;
+            this.inodeBitmap = inodeBitmap;
+        }
+
+        @Override
+        public void visit(int inodeNumber, Inode inode) {
+            int bit = inodeNumber - 1 - firstInode;
+            if((inodeBitmap.get(bit >>> 3) & (1 << (bit & 7))) != 0 || inode.getDeletionTime() == 0)
+                return;
+            numbers.add(inodeNumber);
+            inodes.add(inode);
+        }
+
+        @Override
+        public void merge(Candidates other) {
+            numbers.addAll(other.numbers);
+            inodes.addAll(other.inodes);
+        }
+    }
+
+    /**
+     *The task that scans the inode tables of a range of block groups, by splitting it in half until a single group
+     *is left.
+     */
+    private static class GroupTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+        private final DeletedInodes scan;
+
+        private GroupTask(int from, int to, DeletedInodes scan) {
+            this.from = from;
+            this.to = to;
+            this.scan = scan;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GroupTask(from, middle, scan), new GroupTask(middle, to, scan));
+                return;
+            }
+            try {
+                if(from < to)
+                    scan.scanGroup(from);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
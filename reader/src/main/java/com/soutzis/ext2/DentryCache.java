@@ -0,0 +1,95 @@
+package com.soutzis.ext2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *This class is a bounded LRU cache of directory entries, which maps a (parent inode, name) pair to the
+ *number of the inode that the name refers to. Names that do not exist are cached as well (negative entries,
+ *stored as inode number 0), so that repeating a failed lookup does not scan the whole directory again.
+ *The filesystem image is only ever read, so cached entries never become stale.
+ *@author Petros Soutzis
+ */
+class DentryCache {
+    //Returned by lookup() if the entry is not cached
+    static final int UNKNOWN = -1;
+    //Stored for names that do not exist in their parent directory
+    static final int NEGATIVE = 0;
+
+    private final LinkedHashMap<Key, Integer> entries;
+    private long hits, negativeHits, misses;
+
+    /**
+     *Constructor of the DentryCache class
+     *@param capacity the maximum number of entries that the cache will hold
+     */
+    DentryCache(final int capacity) {
+        entries = new LinkedHashMap<Key, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     *@param parent the number of the directory's inode
+     *@param name the name of the entry within the directory
+     *@return the number of the inode that the name refers to, NEGATIVE if the name is known not to exist,
+     *or UNKNOWN if the entry is not cached
+     */
+    synchronized int lookup(int parent, String name) {
+        Integer inodeNumber = entries.get(new Key(parent, name));
+        if(inodeNumber == null) {
+            misses++;
+            return UNKNOWN;
+        }
+        if(inodeNumber == NEGATIVE)
+            negativeHits++;
+        else
+            hits++;
+
+        return inodeNumber;
+    }
+
+    /**
+     *@param parent the number of the directory's inode
+     *@param name the name of the entry within the directory
+     *@param inodeNumber the number of the inode that the name refers to, or NEGATIVE if the name does not exist
+     */
+    synchronized void put(int parent, String name, int inodeNumber) {
+        entries.put(new Key(parent, name), inodeNumber);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("dentry cache: %d entries, %d hits, %d negative hits, %d misses",
+                entries.size(), hits, negativeHits, misses);
+    }
+
+    /**
+     *The key of a directory entry: the inode number of the parent directory and the entry's name.
+     */
+    private static final class Key {
+        private final int parent;
+        private final String name;
+
+        private Key(int parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return parent == other.parent && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * parent + name.hashCode();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *This class is an in-memory hash index of the names in a directory. It is built by reading every block of the
+ *directory once (direct, indirect, double indirect and triple indirect, with one read per contiguous run of
+ *blocks), after which a name can be looked up in constant time, no matter how many entries the directory has.
+ *@author Petros Soutzis
+ */
+class DirectoryIndex {
+    private final HashMap<String, Integer> entries = new HashMap<>();
+
+    /**
+     *Builds the index of a directory, by reading all of its blocks.
+     *@param directory is the inode of the directory
+     *@param ext2 is the disk
+     *@throws IOException if a block of the directory could not be read
+     */
+    DirectoryIndex(Inode directory, final Ext2File ext2) throws IOException {
+        FileInfo.walkRuns(directory, ext2, (logicalBlock, physicalBlock, blockCount) -> {
+            for(ByteBuffer block : ext2.readMetadataRun(physicalBlock, blockCount, Metrics.DIRECTORY))
+                FileInfo.readDirectoryEntries(block, (inodeNumber, name) -> entries.putIfAbsent(name, inodeNumber));
+            return true;
+        });
+    }
+
+    /**
+     *@param name is the name of the directory or file to look for
+     *@return the inode number of the entry with that name, or 0 if there is no such entry
+     */
+    int find(String name) {
+        Integer inodeNumber = entries.get(name);
+        return inodeNumber == null ? 0 : inodeNumber;
+    }
+
+    /**
+     *@return the number of entries in the directory
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     *A bounded LRU cache of directory indexes, keyed by the directory's inode number.
+     *The bound is the total number of entries in all cached indexes, as a single directory can be very large.
+     */
+    static class Cache {
+        private final long capacity;
+        private final LinkedHashMap<Integer, DirectoryIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+        private long size;
+
+        /**
+         *@param capacity the maximum number of directory entries that all cached indexes will hold together
+         */
+        Cache(long capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         *Returns the index of a directory, building it if it is not cached.
+         *@param directory is the inode of the directory
+         *@param ext2 is the disk
+         *@throws IOException if a block of the directory could not be read
+         *@return the index of the directory
+         */
+        DirectoryIndex get(Inode directory, Ext2File ext2) throws IOException {
+            int inodeNumber = directory.getInodeNumber();
+            synchronized (this) {
+                DirectoryIndex index = indexes.get(inodeNumber);
+                if(index != null)
+                    return index;
+            }
+
+            //the index is built outside of the lock, so that other directories can be looked up meanwhile
+            DirectoryIndex index = new DirectoryIndex(directory, ext2);
+            if(inodeNumber > 0)
+                put(inodeNumber, index);
+
+            return index;
+        }
+
+        private synchronized void put(int inodeNumber, DirectoryIndex index) {
+            DirectoryIndex previous = indexes.put(inodeNumber, index);
+            if(previous != null)
+                size -= previous.size();
+            size += index.size();
+
+            //drop the least recently used indexes, but always keep the one that was just built
+            Iterator<Map.Entry<Integer, DirectoryIndex>> it = indexes.entrySet().iterator();
+            while(size > capacity && indexes.size() > 1) {
+                size -= it.next().getValue().size();
+                it.remove();
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("directory index cache: %d directories, %d entries", indexes.size(), size);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.soutzis.ext2;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ *This is the main class of the program. It provides a way to readBytes an Ext2 Filesystem image,
+ *based on the path that will be provided by the user, as a string.
+ *The path of the image and a single command can also be given as arguments, or a whole script of commands can be run
+ *against the same mounted volume in batch mode (see {@link #USAGE}).
+ *@author Petros Soutzis, 2017-19
+ */
+
+public class Driver {
+    private static Inode inode = null;
+    private static Inode rootInode = null;
+    private static String currentDir;
+    private static Stack<String> pathStack = new Stack<>();
+    //static boolean debug = false;
+    private static boolean running = false;  //could be only in main(), but was added in 'getCommandAndExecute()'
+    //A single reader of the standard input, which is shared by every prompt (and by batch mode, if it reads stdin)
+    private static final BufferedReader STDIN =
+            new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    private static final Pattern MANY_SPACES = Pattern.compile(" +");
+    //The size of the output buffer of batch and one-shot mode, where nobody is watching each line as it is printed
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final String USAGE =
+            "Usage: java -jar ext2reader.jar [-i] [image [command [path] [args...]]]\n" +
+            "       java -jar ext2reader.jar [-i] -b image [script]\n" +
+            "       java -jar ext2reader.jar --serve port image\n" +
+            "  With no image, its path is asked for. With no command, commands are read interactively.\n" +
+            "  -i, --info   print generic information about the mounted volume, without asking first\n" +
+            "  -b, --batch  run the commands of the script, or of the standard input if no script (or \"-\") is\n" +
+            "               given, one per line without prompts. Empty lines and lines starting with '#' are\n" +
+            "               skipped.\n" +
+            "  --serve      answer ls, stat and cat queries of local clients on a local TCP port (see the README)";
+
+    /**
+     * @return An identifier for the computer that currently runs the program
+     */
+    private static String getComputerName() {
+        Map<String, String> env = System.getenv();
+        if (env.containsKey("USER"))
+            return env.get("USER")+":";
+        else return env.getOrDefault("USERNAME", "UnknownHost")+":";
+    }
+
+    /**
+     * Method to get the current-path. Utilises a global stack and String.
+     * @param pathArray The array containing the path values (leaps)
+     */
+    private static void getCurrentPathName(String[] pathArray) {
+        for(String path : pathArray){
+            if(path.equals("..") && !pathStack.peek().equals(Constants.ROOT))
+               pathStack.pop();
+            else if(!path.equals(".") && !path.equals("..")){
+                if(pathStack.peek().equals("/"))
+                    pathStack.push(path);
+                else
+                    pathStack.push("/"+path);
+            }
+        }
+        Stack<String> pathStackCopy = new Stack<>();
+        pathStackCopy.addAll(pathStack);
+        StringBuilder sb = new StringBuilder();
+
+        while(!pathStackCopy.empty()){
+            sb.insert(0,pathStackCopy.pop());
+        }
+        currentDir = sb.toString();
+    }
+
+    /**
+     * If the user enters anything else than Y/y or N/n, they will be prompted to re-enter their decision.
+     * @return true if user enters Y/y, or false if user enters N/n.
+     */
+    private static boolean getInputYesNo() throws IOException {
+        String yes="y", no="n", input = STDIN.readLine();
+        while(input != null && (!input.equalsIgnoreCase(yes)) && (!input.equalsIgnoreCase(no))){
+            System.out.println("Only acceptable inputs are \"Y\" and \"N\" (case insensitive).");
+            System.out.print("(Y/N): ");
+            input = STDIN.readLine();
+        }
+
+        return yes.equalsIgnoreCase(input);
+    }
+
+    /**
+     * Runs a command with execute(), and counts the time that it took in the metrics, if it is a real command.
+     * @param input The user's raw input
+     * @param inodeSize The size of any inode on this FS.
+     * @param sBlock The superblock of this FS.
+     * @param groupDesc The group descriptor of this FS.
+     * @param ext2 The Ext2File instance of the FS.
+     * @return false if the command failed (e.g. the path does not exist or the command is unknown), true otherwise
+     * @throws IOException if the volume can not be read
+     */
+    private static boolean getCommandAndExecute(String input, int inodeSize,
+                                                Superblock sBlock, GroupDescriptor groupDesc, Ext2File ext2)
+    throws IOException{
+        long start = System.nanoTime();
+        try {
+            return execute(input, inodeSize, sBlock, groupDesc, ext2);
+        }
+        finally {
+            String command = MANY_SPACES.split(input.trim(), 2)[0];
+            if(Command.NAMES.contains(command))
+                ext2.getMetrics().recordCommand(command, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * This method will divide the user's input into a command and a target path and execute the given command.
+     * @param input The user's raw input
+     * @param inodeSize The size of any inode on this FS.
+     * @param sBlock The superblock of this FS.
+     * @param groupDesc The group descriptor of this FS.
+     * @param ext2 The Ext2File instance of the FS.
+     * @return false if the command failed (e.g. the path does not exist or the command is unknown), true otherwise
+     * @throws IOException This is not actually correct, the exception should be handled in Ext2File, but who cares.
+     */
+    private static boolean execute(String input, int inodeSize,
+                                   Superblock sBlock, GroupDescriptor groupDesc, Ext2File ext2)
+    throws IOException{
+        //Replace 1 or more spaces with a single space, then remove starting and ending spaces and split into array
+        String[] inputPipeline = MANY_SPACES.matcher(input).replaceAll(" ").trim().split(" ");
+
+        //If ls command is issued with no path, then use current directory
+        String command = inputPipeline[0], path = inputPipeline.length > 1 ? inputPipeline[1] : ".";
+        //stats takes no path
+        if(command.equals(Command.STATS))
+            return Command.doStats(ext2, Arrays.copyOfRange(inputPipeline, 1, inputPipeline.length));
+        //The words after the path are the arguments of the command (only find, xxd, get and df have any)
+        //find and df may omit the path
+        int argsStart = 2;
+        if((command.equals(Command.FIND) || command.equals(Command.DF)) && path.startsWith("-")) {
+            path = ".";
+            argsStart = 1;
+        }
+        String[] commandArgs = Arrays.copyOfRange(inputPipeline, Math.min(argsStart, inputPipeline.length),
+                inputPipeline.length);
+        //Split based on foreslash, then remove any elements from the array that are "the empty string".
+        String[] pathArray = path.split("/");
+        pathArray = Arrays.stream(pathArray)
+                .filter(s -> s.length() > 0)
+                .toArray(String[]::new);
+
+        //Absolute paths are resolved from the root inode, anything else from the current directory
+        boolean absolute = path.startsWith(Constants.ROOT);
+        Inode startInode = absolute ? rootInode : inode;
+        //The name of the last fragment of the path, or the path itself if it is "/"
+        String name = pathArray.length > 0 ? pathArray[pathArray.length-1] : path;
+
+        Inode currentInode = Inode.getContainingInode(pathArray, inodeSize, ext2, startInode, sBlock, groupDesc);
+
+        if(currentInode == null)
+            return false;
+
+        //determine what command it is and act appropriately
+        switch (command){
+            case Command.EXIT:
+                running = false;
+                break;
+            case Command.LS:
+                if(currentInode.isFile())
+                    System.out.println(name);
+                else
+                    return Command.doLs(currentInode, inodeSize, ext2, sBlock, groupDesc);
+                break;
+            case Command.CAT:
+                return Command.doCat(currentInode, inodeSize, ext2, sBlock, groupDesc, name);
+            case Command.CD:
+                if(currentInode.isFile()) {
+                    System.out.println("Not a directory");
+                    return false;
+                }
+                else {
+                    inode = currentInode;
+                    if(absolute) {
+                        pathStack.clear();
+                        pathStack.push(Constants.ROOT);
+                    }
+                    getCurrentPathName(pathArray);
+                }
+                break;
+            case Command.XXD:
+                return Command.doXxd(currentInode, ext2, name, commandArgs);
+            case Command.GET:
+                return Command.doGet(currentInode, name, commandArgs, inodeSize, ext2, sBlock, groupDesc);
+            case Command.FIND:
+                return Command.doFind(currentInode, path, commandArgs, inodeSize, ext2, sBlock, groupDesc);
+            case Command.SCAN:
+                return Command.doScan(ext2, sBlock, groupDesc);
+            case Command.DF:
+                return Command.doDf(commandArgs, ext2, sBlock, groupDesc);
+            case Command.LSDEL:
+                return Command.doLsdel(ext2, sBlock, groupDesc);
+
+            default:
+                System.out.println(command+": command not found");
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Runs every command that the reader provides, one per line, until the input ends or "exit" is issued.
+     * Empty lines and comments (lines that start with '#') are skipped, and no prompt is printed.
+     * @param commands The reader of the script (or of the standard input)
+     * @param inodeSize The size of any inode on this FS.
+     * @param sBlock The superblock of this FS.
+     * @param groupDesc The group descriptor of this FS.
+     * @param ext2 The Ext2File instance of the FS.
+     * @return false if any of the commands failed, true otherwise
+     * @throws IOException if the commands or the volume can not be read
+     */
+    private static boolean runBatch(BufferedReader commands, int inodeSize,
+                                    Superblock sBlock, GroupDescriptor groupDesc, Ext2File ext2) throws IOException {
+        boolean success = true;
+        String line;
+        while(running && (line = commands.readLine()) != null) {
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#"))
+                continue;
+            success &= getCommandAndExecute(line, inodeSize, sBlock, groupDesc, ext2);
+        }
+
+        return success;
+    }
+
+    // Main method of program
+    public static void main (String[] args) throws IOException {
+        //Parse the options, which come before the image, and the command (or script) that comes after it
+        boolean info = false, batch = false;
+        String fsName = null;
+        int port = -1;
+        List<String> rest = new ArrayList<>();
+        for(int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if(fsName != null)
+                rest.add(arg);
+            else if(arg.equals("--serve") && i + 1 < args.length && args[i + 1].matches("\\d{1,5}"))
+                port = Integer.parseInt(args[++i]);
+            else if(arg.equals("-i") || arg.equals("--info"))
+                info = true;
+            else if(arg.equals("-b") || arg.equals("--batch"))
+                batch = true;
+            else if(arg.equals("-h") || arg.equals("--help")) {
+                System.out.println(USAGE);
+                return;
+            }
+            else if(arg.startsWith("-") && !arg.equals("-")) {
+                System.err.println("Unknown option: " + arg + "\n" + USAGE);
+                System.exit(2);
+            }
+            else
+                fsName = arg;
+        }
+        //Batch mode needs an image, as the standard input may be the script itself, and takes at most one script.
+        //The server needs an image too, and takes nothing else.
+        boolean badBatch = batch && (fsName == null || rest.size() > 1);
+        boolean badServer = port >= 0 && (batch || fsName == null || !rest.isEmpty());
+        if(badBatch || badServer) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        boolean interactive = !batch && rest.isEmpty();
+
+        //The server mounts the image once, and answers queries until the process is stopped
+        if(port >= 0) {
+            try(Ext2FileSystem fileSystem = new Ext2FileSystem(fsName);
+                QueryServer server = new QueryServer(fileSystem, port)) {
+                System.out.println("Serving " + fsName + " on " + InetAddress.getLoopbackAddress().getHostAddress()
+                        + ":" + server.getPort());
+                server.serve();
+            }
+            return;
+        }
+
+        running = true;
+        String compName = getComputerName(), promptSymbol = "$ ";
+        if(interactive)
+            System.out.println("EXT2 Filesystem Reader version " + Metadata.VERSION + " BY P.SOUTZIS\n");
+
+        //Initialize a Volume instance and pass it to the Ext2File constructor, to readBytes the ext2 fs image
+        boolean askForInfo = fsName == null;
+        if(askForInfo)
+            fsName = Ext2File.getFileSystemName(STDIN);
+        if(fsName == null)
+            return;
+        if(interactive)
+            System.out.println("\nReading EXT2 File-System image..\n");
+        Volume vol = new Volume(fsName);
+        //Reads the SuperBlock and the Group Descriptor table, which may take up more than one block
+        Ext2FileSystem fileSystem = new Ext2FileSystem(vol);
+        Ext2File ext2 = fileSystem.getExt2File();
+        Superblock sBlock = fileSystem.getSuperblock();
+        GroupDescriptor groupDesc = fileSystem.getGroupDescriptor();
+        final int inodeSize = fileSystem.getInodeSize();
+        final int blockGroupCount = groupDesc.getGroupCount();
+
+        //The output of batch and one-shot mode is buffered, instead of being flushed at every line
+        if(!interactive)
+            System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out),
+                    OUTPUT_BUFFER_SIZE), false));
+
+        //If the user chooses to (or asked for it with -i), then print this information.
+        if(askForInfo && !info) {
+            System.out.print("Would you like to view generic information about the mounted volume? (Y/N): ");
+            info = getInputYesNo();
+        }
+        if(info) {
+            sBlock.printGenericData(inodeSize, blockGroupCount);
+            for (int i = 0; i < groupDesc.getGroupCount(); i++)
+                System.out.println("Inode Table " + (i + 1) + " offset in Group Descriptor is: " +
+                        groupDesc.getInodeTable(i));
+        }
+
+        //Push root symbol ("/") into stack and initialize currentDir
+        pathStack.push(Constants.ROOT);
+        currentDir = pathStack.peek();
+
+        //The root inode, which contains pointers to the filesystem blocks, which contain the data
+        rootInode = fileSystem.getRootInode();
+        inode = rootInode;
+
+        if(!interactive) {
+            boolean success;
+            if(!batch)
+                success = getCommandAndExecute(String.join(" ", rest), inodeSize, sBlock, groupDesc, ext2);
+            else if(rest.isEmpty() || rest.get(0).equals("-"))
+                success = runBatch(STDIN, inodeSize, sBlock, groupDesc, ext2);
+            else try(BufferedReader script = Files.newBufferedReader(Paths.get(rest.get(0)))) {
+                success = runBatch(script, inodeSize, sBlock, groupDesc, ext2);
+            }
+            System.out.flush();
+            if(!success)
+                System.exit(1);
+            return;
+        }
+
+        while(running) {
+            //Get the user input, and stop as if "exit" was issued when the input ends
+            System.out.print("\n"+compName+currentDir+promptSymbol);
+            String input = STDIN.readLine();
+            if(input == null)
+                break;
+
+            getCommandAndExecute(input, inodeSize, sBlock, groupDesc, ext2);
+        }
+        Command.doExit();
+    }
+}
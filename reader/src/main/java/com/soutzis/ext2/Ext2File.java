@@ -0,0 +1,456 @@
+package com.soutzis.ext2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ *This class provides a way to readBytes bytes in a Randomly Accessed File, either from a given offset
+ *or from the current file pointer
+ *@author Petros Soutzis, 2017-19
+ */
+public class Ext2File
+{
+    private Volume volume;
+    //the channel of the volume, which every read that is not mapped goes through, until an interrupt closes it
+    private volatile FileChannel channel;
+    private MappedByteBuffer[] segments; //the mapped segments of the volume, or null if it is not memory-mapped
+    private long size; //the size of the volume in bytes
+    private int blockSize; //the size of each block, as given by the superblock
+    private BlockCache cache; //the cache of recently read metadata blocks
+    private InodeCache inodeCache; //the cache of recently decoded inodes
+    private DentryCache dentryCache; //the cache of recently resolved directory entries
+    private DirectoryIndex.Cache directoryIndexCache; //the cache of in-memory directory indexes
+    private HTree htree; //the lookup of names in the directories that have a hash tree index
+    private int maxIoSize = Constants.DEFAULT_MAX_IO_SIZE; //the largest read that runs of blocks are merged into
+    private final Metrics metrics = new Metrics(); //the counters of the reads, path lookups and commands
+    private final Readahead readahead = new Readahead(this); //the readahead of the files that are read sequentially
+    private long touched; //the sum of the bytes that prefetch() touched, only so that touching is not optimized out
+
+    /**
+     *Constructor of Ext2File class. Will readBytes the ext2fs image and return the bytes that were readBytes.
+     *The block size is read from the superblock here, so that every block-sized read uses the native block size,
+     *and so is the seed of the directory hash.
+     *@param vol is the Volume that the Ext2File will readBytes bytes from.
+     *@throws IOException if the superblock could not be read, or its block size is not valid
+     */
+    public Ext2File(Volume vol) throws IOException {
+
+        volume = vol;
+        channel = vol.getRandomAccessFile().getChannel();
+        segments = vol.getSegments();
+        size = vol.getSize();
+        ByteBuffer superblock = readBuffer(Constants.SUPERBLOCK_OFFSET, Constants.SUPERBLOCK_SIZE,
+                Metrics.SUPERBLOCK);
+        int logBlockSize = superblock.getInt(Constants.S_LOG_BLOCK_SIZE_OFFSET);
+        if(logBlockSize < 0 || Constants.MIN_BLOCK_SIZE << Math.min(logBlockSize, 16) > Constants.MAX_BLOCK_SIZE)
+            throw new IOException("Unsupported block size: s_log_block_size is " + logBlockSize);
+        blockSize = Constants.MIN_BLOCK_SIZE << logBlockSize;
+        cache = new BlockCache(Constants.METADATA_CACHE_SIZE);
+        inodeCache = new InodeCache(Constants.INODE_CACHE_SIZE);
+        dentryCache = new DentryCache(Constants.DENTRY_CACHE_SIZE);
+        directoryIndexCache = new DirectoryIndex.Cache(Constants.DIRECTORY_INDEX_CACHE_SIZE);
+        htree = new HTree(new Superblock(superblock));
+    }
+
+    /**
+     *Reads at most length bytes starting at byte offset startByte from start of file, which are counted as data.
+     *Byte 0 is the first byte in the file.
+     *StartByte must be such that, 0 less or equal than, startByte less than file.size or an exception should be raised.
+     *@param startByte the offset from which the file will start reading from
+     *@param length the size that the byte-array will have
+     *@throws IOException is thrown when an error happens during the reading of the RAF
+     *@return the byte array that the random access file readBytes from the volume
+     */
+    byte[] readBytes(long startByte, long length) throws IOException{
+        return readBytes(startByte, length, Metrics.DATA);
+    }
+
+    /**
+     *Reads at most length bytes starting at byte offset startByte from start of file.
+     *@param startByte the offset from which the file will start reading from
+     *@param length the size that the byte-array will have
+     *@param kind the kind of the read, that it is counted as in the metrics (see Metrics)
+     *@throws IOException is thrown when an error happens during the reading of the RAF
+     *@return the byte array that the random access file readBytes from the volume
+     */
+    byte[] readBytes(long startByte, long length, int kind) throws IOException{
+        Metrics.ReadEvent event = Metrics.beginRead();
+        long start = System.nanoTime();
+        byte[] data = new byte[(int) length];
+        if(segments != null)
+            view(startByte, length).get(data);
+        else {
+            //positional reads do not use the file pointer, so any number of threads can read at the same time
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            FileChannel in = channel;
+            while(buffer.hasRemaining()) {
+                try {
+                    if(in.read(buffer, startByte + buffer.position()) < 0)
+                        throw new EOFException("Cannot read " + length + " bytes at offset " + startByte);
+                }
+                catch (ClosedChannelException e) {
+                    in = reopen(in, e);
+                }
+            }
+        }
+        metrics.recordRead(kind, startByte, length, System.nanoTime() - start, event);
+
+        return data;
+    }
+
+    /**
+     *Reads length bytes starting at byte offset startByte, as a little-endian ByteBuffer, which are counted as data.
+     *@param startByte the offset from which the file will start reading from
+     *@param length the number of bytes that the buffer will hold
+     *@throws IOException is thrown when the range is outside of the volume, or the RAF could not be read
+     *@return the buffer holding the requested bytes
+     */
+    ByteBuffer readBuffer(long startByte, long length) throws IOException {
+        return readBuffer(startByte, length, Metrics.DATA);
+    }
+
+    /**
+     *Reads length bytes starting at byte offset startByte, as a little-endian ByteBuffer.
+     *If the volume is memory-mapped, the returned buffer is a view of the mapped image and no bytes are copied,
+     *unless the requested range crosses the boundary between two mapped segments.
+     *Otherwise the bytes are read through the Random Access File and wrapped.
+     *The returned buffer starts at position 0, so absolute gets can use the same offsets as a byte array would.
+     *@param startByte the offset from which the file will start reading from
+     *@param length the number of bytes that the buffer will hold
+     *@param kind the kind of the read, that it is counted as in the metrics (see Metrics)
+     *@throws IOException is thrown when the range is outside of the volume, or the RAF could not be read
+     *@return the buffer holding the requested bytes
+     */
+    ByteBuffer readBuffer(long startByte, long length, int kind) throws IOException {
+        if(segments == null)
+            return ByteBuffer.wrap(readBytes(startByte, length, kind)).order(ByteOrder.LITTLE_ENDIAN);
+
+        Metrics.ReadEvent event = Metrics.beginRead();
+        ByteBuffer view = view(startByte, length);
+        //finding the mapped range takes no time worth measuring, so the read is only counted
+        metrics.recordRead(kind, startByte, length, -1, event);
+
+        return view;
+    }
+
+    /**
+     *@return a little-endian view of length bytes of the mapped volume, starting at byte offset startByte
+     */
+    private ByteBuffer view(long startByte, long length) throws IOException {
+        if(startByte < 0 || length < 0 || startByte + length > size)
+            throw new EOFException("Cannot read " + length + " bytes at offset " + startByte);
+
+        int index = (int)(startByte >>> Volume.SEGMENT_SHIFT);
+        int position = (int)(startByte & (Volume.SEGMENT_SIZE - 1));
+        ByteBuffer view;
+
+        if(position + length <= segments[index].capacity()) {
+            //common case, the range is within one segment so a slice of it can be returned
+            view = segments[index].duplicate();
+            view.position(position);
+            view.limit(position + (int) length);
+            view = view.slice();
+        }
+        else {
+            //the range crosses into the next segment(s), so the bytes have to be copied
+            view = ByteBuffer.allocate((int) length);
+            while(view.hasRemaining()) {
+                ByteBuffer segment = segments[index++].duplicate();
+                segment.position(position);
+                segment.limit(Math.min(segment.capacity(), position + view.remaining()));
+                view.put(segment);
+                position = 0;
+            }
+            view.flip();
+        }
+
+        return view.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     *Copies length bytes starting at byte offset startByte straight from the volume to a channel.
+     *The bytes are sent with FileChannel.transferTo, which lets the operating system copy them without passing
+     *through the Java heap if the target is a file or a socket. If the volume is memory-mapped and the target is
+     *any other channel, a view of the mapped bytes is written to it instead.
+     *@param startByte the offset from which the file will start reading from
+     *@param length the number of bytes to copy
+     *@param out the channel that the bytes will be written to
+     *@throws IOException if the range is outside of the volume, or the bytes could not be copied
+     */
+    void transferTo(long startByte, long length, WritableByteChannel out) throws IOException {
+        if(startByte < 0 || length < 0 || startByte + length > size)
+            throw new EOFException("Cannot read " + length + " bytes at offset " + startByte);
+
+        Metrics.ReadEvent event = Metrics.beginRead();
+        long start = System.nanoTime();
+        if(segments != null && !(out instanceof FileChannel)) {
+            ByteBuffer view = view(startByte, length);
+            while(view.hasRemaining())
+                out.write(view);
+        }
+        else {
+            FileChannel in = channel;
+            for(long position = startByte, end = startByte + length; position < end; ) {
+                try {
+                    position += in.transferTo(position, end - position, out);
+                }
+                catch (ClosedChannelException e) {
+                    in = reopen(in, e);
+                }
+            }
+        }
+        //the time includes writing to the channel, as the bytes are read while they are written
+        metrics.recordRead(Metrics.DATA, startByte, length, System.nanoTime() - start, event);
+    }
+
+    /**
+     *Reads a range of the volume only to bring it into the page cache of the operating system, so that the read of
+     *it that follows (with any of the other methods) does not have to wait for the disk. If the volume is
+     *memory-mapped, a byte of every page of the range is touched, otherwise the range is read into the scratch
+     *buffer, which is overwritten. Nothing that is read is kept.
+     *@param startByte the offset of the first byte to fetch
+     *@param length the number of bytes to fetch
+     *@param scratch a direct buffer that the range is read into, in pieces of its capacity
+     *@throws IOException if the range is outside of the volume, or could not be read
+     */
+    void prefetch(long startByte, long length, ByteBuffer scratch) throws IOException {
+        if(startByte < 0 || length < 0 || startByte + length > size)
+            throw new EOFException("Cannot read " + length + " bytes at offset " + startByte);
+
+        Metrics.ReadEvent event = Metrics.beginRead();
+        long start = System.nanoTime(), end = startByte + length;
+        if(segments != null) {
+            long sum = 0;
+            for(long position = startByte; position < end; position += Constants.PAGE_SIZE) {
+                int index = (int)(position >>> Volume.SEGMENT_SHIFT);
+                sum += segments[index].get((int)(position & (Volume.SEGMENT_SIZE - 1)));
+            }
+            touched += sum;
+        }
+        else {
+            FileChannel in = channel;
+            for(long position = startByte; position < end; ) {
+                scratch.clear();
+                scratch.limit((int) Math.min(scratch.capacity(), end - position));
+                int read;
+                try {
+                    read = in.read(scratch, position);
+                }
+                catch (ClosedChannelException e) {
+                    in = reopen(in, e);
+                    continue;
+                }
+                if(read < 0)
+                    throw new EOFException("Cannot read " + length + " bytes at offset " + startByte);
+                position += read;
+            }
+        }
+        metrics.recordRead(Metrics.READAHEAD, startByte, length, System.nanoTime() - start, event);
+    }
+
+    /**
+     *Handles a read that failed because a channel was closed. If it was the channel of the volume, it was closed by
+     *a thread that was interrupted while it was reading from it, as FileChannel does, so it is opened again for
+     *every other thread, and the read that failed is retried on the new channel. The interrupted thread's own read
+     *is not retried, as it was cancelled.
+     *@param failed the channel of the volume that the read went through
+     *@param e the exception that the read failed with
+     *@throws ClosedChannelException if the read was interrupted, the channel that was closed is not the channel of
+     *the volume (but the one that is written to), or the volume itself was closed
+     *@throws IOException if the volume could not be opened again
+     *@return the channel to retry the read on
+     */
+    private FileChannel reopen(FileChannel failed, ClosedChannelException e) throws IOException {
+        if(failed.isOpen())
+            throw e;
+        channel = volume.reopen(failed);
+        if(e instanceof ClosedByInterruptException)
+            throw e;
+        return channel;
+    }
+
+    /**
+     *Reads a whole block that holds metadata (inode table, directory entries or block pointers), through the
+     *metadata pool of the block cache.
+     *@param blockNumber the number of the block to read
+     *@param kind the kind of the block, that a read of it is counted as in the metrics (see Metrics)
+     *@throws IOException if the block could not be read from the volume
+     *@return a little-endian view of the block
+     */
+    ByteBuffer readMetadataBlock(long blockNumber, int kind) throws IOException {
+        ByteBuffer block = cache.get(blockNumber);
+        if(block == null) {
+            block = readBuffer(blockNumber * blockSize, blockSize, kind);
+            cache.put(blockNumber, block);
+        }
+
+        return block;
+    }
+
+    /**
+     *Reads length bytes of metadata starting at byte offset startByte. If the range lies within a single block,
+     *it is served as a slice of the cached metadata block, otherwise it is read from the volume directly.
+     *@param startByte the offset from which the file will start reading from
+     *@param length the number of bytes that the buffer will hold
+     *@param kind the kind of the metadata, that a read of it is counted as in the metrics (see Metrics)
+     *@throws IOException if the bytes could not be read from the volume
+     *@return a little-endian view of the requested bytes
+     */
+    ByteBuffer readMetadata(long startByte, int length, int kind) throws IOException {
+        long blockNumber = startByte / blockSize;
+        int offset = (int)(startByte % blockSize);
+        if(offset + length > blockSize)
+            return readBuffer(startByte, length, kind);
+
+        ByteBuffer block = readMetadataBlock(blockNumber, kind);
+        block.position(offset);
+        block.limit(offset + length);
+
+        return block.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     *Reads a run of physically contiguous metadata blocks with a single read, and caches each of its blocks in the
+     *metadata pool. If every block of the run is already cached, nothing is read.
+     *@param startBlock the number of the first block of the run
+     *@param blockCount the number of blocks in the run
+     *@param kind the kind of the blocks, that a read of them is counted as in the metrics (see Metrics)
+     *@throws IOException if the run could not be read from the volume
+     *@return a little-endian view of each block of the run, in order
+     */
+    ByteBuffer[] readMetadataRun(long startBlock, int blockCount, int kind) throws IOException {
+        ByteBuffer[] blocks = new ByteBuffer[blockCount];
+        boolean cached = true;
+        for(int i = 0; i < blockCount && cached; i++) {
+            blocks[i] = cache.get(startBlock + i);
+            cached = blocks[i] != null;
+        }
+        if(cached)
+            return blocks;
+
+        ByteBuffer run = readBuffer(startBlock * blockSize, (long) blockCount * blockSize, kind);
+        for(int i = 0; i < blockCount; i++) {
+            ByteBuffer block;
+            if(segments != null) {
+                run.position(i * blockSize);
+                run.limit((i + 1) * blockSize);
+                block = run.slice();
+            }
+            else {
+                //copied, so that a cached block does not keep the array of the whole run alive
+                byte[] data = new byte[blockSize];
+                run.position(i * blockSize);
+                run.get(data);
+                block = ByteBuffer.wrap(data);
+            }
+            blocks[i] = block.order(ByteOrder.LITTLE_ENDIAN);
+            cache.put(startBlock + i, blocks[i]);
+        }
+
+        return blocks;
+    }
+
+    /**
+     *@return the size of each block of the volume in bytes
+     */
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     *@return the largest number of bytes that a run of contiguous blocks will be read with
+     */
+    int getMaxIoSize() {
+        return maxIoSize;
+    }
+
+    /**
+     *@param maxIoSize the largest number of bytes that a run of contiguous blocks will be read with.
+     *A value up to the block size means that every block is read on its own.
+     */
+    void setMaxIoSize(int maxIoSize) {
+        this.maxIoSize = maxIoSize;
+    }
+
+    /**
+     *@return the block cache, which holds the hit, miss and eviction counters
+     */
+    BlockCache getBlockCache() {
+        return cache;
+    }
+
+    /**
+     *@return the counters of the reads from the volume, the path lookups and the commands
+     */
+    Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     *@return the readahead of the files that are read sequentially
+     */
+    Readahead getReadahead() {
+        return readahead;
+    }
+
+    /**
+     *@return the cache of decoded inodes, keyed by inode number
+     */
+    InodeCache getInodeCache() {
+        return inodeCache;
+    }
+
+    /**
+     *@return the cache of directory entries, keyed by parent inode number and name
+     */
+    DentryCache getDentryCache() {
+        return dentryCache;
+    }
+
+    /**
+     *@return the lookup of names in the directories that have a hash tree index
+     */
+    HTree getHTree() {
+        return htree;
+    }
+
+    /**
+     *@return the cache of in-memory directory indexes, keyed by the directory's inode number
+     */
+    DirectoryIndex.Cache getDirectoryIndexCache() {
+        return directoryIndexCache;
+    }
+
+    /**
+     * @param in The reader of the standard input, which is shared by every prompt of the program
+     * @return The name (or pathname) of the disk to read (filesystem image), or null if the input has ended.
+     * @throws IOException if the standard input can not be read
+     */
+    static String getFileSystemName(BufferedReader in) throws IOException {
+        System.out.println("Enter the name of the disk to read (or the full path if not in the same folder).");
+        System.out.print("FS Name: ");
+        System.out.flush();
+
+        return in.readLine();
+    }
+
+//    /**
+//     *Reads at most length bytes, starting from the current file pointer.
+//     *@param length the size that the byte-array will have
+//     *@throws IOException e
+//     *@return the byte array that the random access file readBytes from the volume
+//     */
+//    public byte[] readBytes(long length) throws IOException {
+//        byte[] data = new byte[(int)length];
+//        raf.seek(raf.getFilePointer());
+//        raf.readFully(data);
+//
+//        return data;
+//    }
+}
@@ -0,0 +1,208 @@
+package com.soutzis.ext2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *This class is the entry point for using the reader as a library. Opening it mounts an image: the superblock and the
+ *whole group descriptor table are read once, and it then offers lookups, directory listings and reads of files.
+ *It is thread-safe, so one instance can serve any number of threads. Nothing in it changes after it is opened
+ *(there is no current directory, so every path is absolute), the caches of the Ext2File are synchronized, and the
+ *image is read from its memory mapping or with positional FileChannel reads, so reads do not share a file pointer
+ *or a lock. A thread that is interrupted while it is reading only fails its own read: the FileChannel that the
+ *interrupt closes is opened again, and the reads of the other threads carry on through the new one.
+ *@author Petros Soutzis
+ */
+public class Ext2FileSystem implements Closeable {
+    private final Volume volume;
+    private final Ext2File ext2;
+    private final Superblock superblock;
+    private final GroupDescriptor groupDescriptor;
+    private final int inodeSize;
+    private final Inode rootInode;
+
+    /**
+     *Opens an image, which is memory-mapped if possible.
+     *@param image the path of the image
+     *@throws IOException if the image can not be opened, or its superblock or group descriptors can not be read
+     */
+    public Ext2FileSystem(String image) throws IOException {
+        this(image, true);
+    }
+
+    /**
+     *Opens an image.
+     *@param image the path of the image
+     *@param mapped if true, the image is memory-mapped, otherwise it is read with positional reads only
+     *@throws IOException if the image can not be opened, or its superblock or group descriptors can not be read
+     */
+    public Ext2FileSystem(String image, boolean mapped) throws IOException {
+        this(new Volume(Paths.get(image), mapped));
+    }
+
+    /**
+     *Mounts a volume that is already open. The volume is closed along with this file system.
+     *@param volume the volume that holds the image
+     *@throws IOException if the superblock or group descriptors can not be read
+     */
+    public Ext2FileSystem(Volume volume) throws IOException {
+        this.volume = volume;
+        try {
+            ext2 = new Ext2File(volume);
+            //Buffer to hold the data of the SuperBlock, as returned by Ext2File's readBuffer() method
+            ByteBuffer superBlockData = ext2.readBuffer(Constants.SUPERBLOCK_OFFSET, Constants.SUPERBLOCK_SIZE,
+                    Metrics.SUPERBLOCK);
+            superblock = new Superblock(superBlockData);
+            inodeSize = superblock.getInodeSize();
+            int blockGroupCount = superblock.getBlockGroupCount(superblock.getBlockCount(),
+                    superblock.getBlocksPerGroup());
+            //The table starts at the block after the superblock's, and may take up more than one block
+            ByteBuffer gDescData = ext2.readBuffer(superblock.getGroupDescriptorOffset(),
+                    (long) blockGroupCount * Constants.GDESCRIPTOR_SIZE, Metrics.GROUP_DESCRIPTOR);
+            groupDescriptor = new GroupDescriptor(gDescData, blockGroupCount);
+            rootInode = Inode.readInode(Constants.ROOT_INODE_OFFSET, inodeSize, ext2, superblock, groupDescriptor);
+        }
+        catch (IOException | RuntimeException e) {
+            volume.close();
+            throw e;
+        }
+    }
+
+    /**
+     *@param path an absolute path ("/" is the root directory)
+     *@throws NoSuchFileException if the path does not exist
+     *@throws IOException if a directory or an inode on the way could not be read
+     *@return the inode of the path
+     */
+    public Inode lookup(String path) throws IOException {
+        String[] pathArray = Arrays.stream(path.split("/"))
+                .filter(s -> s.length() > 0 && !s.equals("."))
+                .toArray(String[]::new);
+        Inode inode = Inode.resolve(pathArray, inodeSize, ext2, rootInode, superblock, groupDescriptor);
+        if(inode == null)
+            throw new NoSuchFileException(path);
+
+        return inode;
+    }
+
+    /**
+     *@param path the absolute path of a directory
+     *@throws NoSuchFileException if the path does not exist
+     *@throws NotDirectoryException if the path is not a directory
+     *@throws IOException if the directory could not be read
+     *@return the names of the entries of the directory, in the order that they are stored (without "." and "..")
+     */
+    public List<String> list(String path) throws IOException {
+        Inode directory = lookup(path);
+        if(!directory.isDirectory())
+            throw new NotDirectoryException(path);
+
+        return list(directory);
+    }
+
+    /**
+     *@param directory the inode of a directory, as returned by lookup()
+     *@throws NotDirectoryException if the inode is not a directory
+     *@throws IOException if the directory could not be read
+     *@return the names of the entries of the directory, in the order that they are stored (without "." and "..")
+     */
+    public List<String> list(Inode directory) throws IOException {
+        if(!directory.isDirectory())
+            throw new NotDirectoryException("inode " + directory.getInodeNumber());
+
+        List<String> names = new ArrayList<>();
+        FileInfo.readDirectoryEntries(directory, ext2, names);
+        names.removeIf(name -> name.equals(".") || name.equals(".."));
+
+        return names;
+    }
+
+    /**
+     *Reads bytes of a file into a buffer, starting at an offset within the file (see FileInfo.read()).
+     *@param inode the inode of the file, as returned by lookup()
+     *@param offset the offset within the file of the first byte to read
+     *@param dst the buffer that the bytes are put into, up to its limit
+     *@throws IOException if the file could not be read
+     *@return the number of bytes that were read, or -1 if the offset is at or past the end of the file
+     */
+    public int read(Inode inode, long offset, ByteBuffer dst) throws IOException {
+        return FileInfo.read(inode, ext2, offset, dst);
+    }
+
+    /**
+     *@param path the absolute path of a file
+     *@param offset the offset within the file of the first byte to read
+     *@param length the maximum number of bytes to read
+     *@throws NoSuchFileException if the path does not exist
+     *@throws IOException if the file could not be read
+     *@return the bytes that were read, which are fewer than length if the file ends first
+     */
+    public byte[] read(String path, long offset, int length) throws IOException {
+        return FileInfo.read(lookup(path), ext2, offset, length);
+    }
+
+    /**
+     *@return the root directory
+     */
+    public Inode getRootInode() {
+        return rootInode;
+    }
+
+    /**
+     *@return the volume label
+     */
+    public String getVolumeName() {
+        return superblock.getVolumeName();
+    }
+
+    /**
+     *@return the size of each block in bytes
+     */
+    public int getBlockSize() {
+        return superblock.getBlockSize();
+    }
+
+    /**
+     *@return the disk, which holds the caches
+     */
+    Ext2File getExt2File() {
+        return ext2;
+    }
+
+    /**
+     *@return the superblock
+     */
+    Superblock getSuperblock() {
+        return superblock;
+    }
+
+    /**
+     *@return the group descriptors of all the block groups
+     */
+    GroupDescriptor getGroupDescriptor() {
+        return groupDescriptor;
+    }
+
+    /**
+     *@return the size of each inode in bytes
+     */
+    int getInodeSize() {
+        return inodeSize;
+    }
+
+    /**
+     *Closes the image. Nothing can be read through this file system afterwards.
+     *@throws IOException if the image could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        volume.close();
+    }
+}
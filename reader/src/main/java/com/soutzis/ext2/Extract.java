@@ -0,0 +1,320 @@
+package com.soutzis.ext2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *This class implements the "get" command, which copies a file or a whole directory tree out of the image into a
+ *directory on the host. Like "find", the tree is walked on a ForkJoin pool with one task per directory, and every
+ *file is copied by a task of its own, so that many files are copied at the same time. Files that are larger than
+ *CHUNK_SIZE are split into chunks, which are copied in parallel as well.
+ *The data is copied with FileChannel.transferTo, and the holes of a file are never written, so they stay sparse on
+ *the host. Directories, regular files and symbolic links are recreated along with their permission bits and
+ *modification times. Other types of files (devices, FIFOs and sockets) are skipped, and hard links are copied as
+ *separate files.
+ *The names of the entries come from the image, so an entry whose name could place it outside of the host directory
+ *is not copied. The symbolic links are only created after everything else has been written, so that no file is
+ *ever written through a link that came from the image, and an existing link on the host is replaced rather than
+ *followed.
+ *@author Petros Soutzis
+ */
+class Extract {
+    //The work is bound by I/O rather than by the CPU, so there are more workers than CPUs, but never unboundedly many
+    private static final int WORKERS = Math.min(32, Runtime.getRuntime().availableProcessors() * 2);
+    private static final ForkJoinPool POOL = new ForkJoinPool(WORKERS);
+    //Files larger than this are copied in chunks of this size (a multiple of every block size), in parallel
+    static final long CHUNK_SIZE = 64L << 20;
+    //The target of a symbolic link that is shorter than this is stored in place of the inode's block pointers
+    private static final int FAST_SYMLINK_SIZE = Constants.INODE_POINTERS_COUNT * Constants.BYTE_LENGTH;
+    private static final PosixFilePermission[] PERMISSIONS = PosixFilePermission.values();
+
+    /**
+     *Copies a file, or a directory and everything under it, into a directory on the host.
+     *@param inode The inode of the path to copy
+     *@param name The name of the path to copy, which is the name it gets on the host. If it is the root ("/"),
+     *"." or "..", the contents of the directory are copied into the host directory itself.
+     *@param hostDir The directory on the host to copy into, which is created if it does not exist
+     *@param inodeSize The inode size
+     *@param ext2 The disk
+     *@param superblock The superblock
+     *@param groupDescriptor The group descriptor
+     *@return false if the host directory could not be created or anything failed to be copied, true otherwise
+     */
+    static boolean get(Inode inode, String name, String hostDir, int inodeSize, Ext2File ext2, Superblock superblock,
+                    GroupDescriptor groupDescriptor) {
+        long start = System.nanoTime();
+        Path root, target;
+        try {
+            root = Files.createDirectories(Paths.get(hostDir)).toAbsolutePath().normalize();
+            target = root;
+            if(!name.equals(Constants.ROOT) && !name.equals(".") && !name.equals(".."))
+                target = resolve(root, name, root);
+        }
+        catch (IOException | InvalidPathException e) {
+            System.out.println("get: " + hostDir + ": " + e.getMessage());
+            return false;
+        }
+        Job job = new Job(root, inodeSize, ext2, superblock, groupDescriptor);
+
+        POOL.invoke(new EntryTask(inode, target, job));
+        job.finish();
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("get: " + job.files + " files (" + job.bytes + " bytes), " + job.directories +
+                " directories and " + job.links + " links copied to " + target + " in " + millis + " ms");
+        if(job.skipped.sum() + job.errors.sum() > 0)
+            System.out.println("get: " + job.skipped + " special files skipped, " + job.errors + " errors");
+        return job.errors.sum() == 0;
+    }
+
+    /**
+     *Resolves the name of a directory entry against the host directory that the entry is copied into.
+     *@param dir The host directory of the entry
+     *@param name The name of the entry, as read from the image
+     *@param root The host directory that the whole tree is copied into
+     *@return the path of the entry on the host
+     *@throws IOException if the name is empty, "." or "..", contains a '/' or a NUL, or would resolve to a path
+     *outside of the root
+     */
+    static Path resolve(Path dir, String name, Path root) throws IOException {
+        if(name.isEmpty() || name.equals(".") || name.equals("..") || name.indexOf('/') >= 0 ||
+                name.indexOf('\0') >= 0)
+            throw new IOException("unsafe name \"" + name.replace("\0", "\\0") + "\" not copied");
+        Path entry = dir.resolve(name);
+        if(!entry.normalize().startsWith(root))
+            throw new IOException(name + ": outside of " + root + ", not copied");
+        return entry;
+    }
+
+    /**
+     *The state that is shared by all the tasks of one "get" command: the file system, the counters, and the work that
+     *is left for after the tree has been walked.
+     */
+    private static class Job {
+        private final Path root;
+        private final int inodeSize;
+        private final Ext2File ext2;
+        private final Superblock superblock;
+        private final GroupDescriptor groupDescriptor;
+        private final LongAdder files = new LongAdder(), bytes = new LongAdder(), directories = new LongAdder(),
+                links = new LongAdder(), skipped = new LongAdder(), errors = new LongAdder();
+        //The symbolic links to create, by their paths, and the directories to set the attributes of
+        private final Map<Path, Path> pendingLinks = new ConcurrentHashMap<>();
+        private final Map<Path, Inode> pendingDirectories = new ConcurrentHashMap<>();
+
+        private Job(Path root, int inodeSize, Ext2File ext2, Superblock superblock, GroupDescriptor groupDescriptor) {
+            this.root = root;
+            this.inodeSize = inodeSize;
+            this.ext2 = ext2;
+            this.superblock = superblock;
+            this.groupDescriptor = groupDescriptor;
+        }
+
+        /**
+         *Reports a path that could not be copied. The rest of the tree is still copied.
+         */
+        private void fail(Path target, Exception e) {
+            errors.increment();
+            System.out.println("get: " + target + ": " + e);
+        }
+
+        /**
+         *Creates the symbolic links, now that every file has been written, and then sets the attributes of the
+         *directories, from the deepest up, as creating their entries changed their modification times and their
+         *permissions might not have allowed it.
+         */
+        private void finish() {
+            for(Map.Entry<Path, Path> link : pendingLinks.entrySet()) {
+                try {
+                    Files.deleteIfExists(link.getKey());
+                    Files.createSymbolicLink(link.getKey(), link.getValue());
+                    links.increment();
+                }
+                catch (IOException | RuntimeException e) {
+                    fail(link.getKey(), e);
+                }
+            }
+
+            List<Path> directories = new ArrayList<>(pendingDirectories.keySet());
+            directories.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+            for(Path directory : directories) {
+                try {
+                    setAttributes(directory, pendingDirectories.get(directory));
+                }
+                catch (IOException | RuntimeException e) {
+                    fail(directory, e);
+                }
+            }
+        }
+    }
+
+    /**
+     *The task that copies one entry of the tree, by its type. A directory task creates the directory and forks a task
+     *for every entry in it. The attributes of the directories and the symbolic links are left for Job.finish().
+     */
+    private static class EntryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Inode inode;
+        private final Path target;
+        private final Job job;
+
+        private EntryTask(Inode inode, Path target, Job job) {
+            this.inode = inode;
+            this.target = target;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                switch (inode.getFileType()) {
+                    case Constants.IFDIR:
+                        copyDirectory();
+                        break;
+                    case Constants.IFREG:
+                        copyFile();
+                        break;
+                    case Constants.IFLNK:
+                        copyLink();
+                        break;
+                    default:
+                        job.skipped.increment();
+                }
+            }
+            catch (IOException | RuntimeException e) {
+                job.fail(target, e);
+            }
+        }
+
+        private void copyDirectory() throws IOException {
+            //a link in the place of a directory is replaced, unless it is the host directory that the user chose
+            if(!target.equals(job.root) && Files.isSymbolicLink(target))
+                Files.delete(target);
+            Files.createDirectories(target);
+            List<String> names = new ArrayList<>();
+            int[] inodeNumbers = FileInfo.readDirectoryEntries(inode, job.ext2, names);
+            Inode[] inodes = Inode.readInodes(inodeNumbers, job.inodeSize, job.ext2, job.superblock,
+                    job.groupDescriptor);
+
+            List<EntryTask> entries = new ArrayList<>();
+            for(int i = 0; i < inodes.length; i++) {
+                if(names.get(i).equals(".") || names.get(i).equals(".."))
+                    continue;
+                try {
+                    entries.add(new EntryTask(inodes[i], resolve(target, names.get(i), job.root), job));
+                }
+                catch (IOException | InvalidPathException e) {
+                    job.fail(target, e);
+                }
+            }
+            invokeAll(entries);
+
+            job.pendingDirectories.put(target, inode);
+            job.directories.increment();
+        }
+
+        private void copyFile() throws IOException {
+            long size = inode.getSize();
+            //A link or an earlier copy in its place is removed rather than written through. The file is created with
+            //its full length, so every range that is not written stays a hole
+            Files.deleteIfExists(target);
+            Files.createFile(target);
+            try(RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+                file.setLength(size);
+            }
+
+            List<ChunkTask> chunks = new ArrayList<>();
+            for(long offset = 0; offset < size; offset += CHUNK_SIZE)
+                chunks.add(new ChunkTask(inode, target, offset, job));
+            if(chunks.size() == 1)
+                chunks.get(0).compute();
+            else
+                invokeAll(chunks);
+
+            setAttributes(target, inode);
+            job.files.increment();
+            job.bytes.add(size);
+        }
+
+        private void copyLink() throws IOException {
+            long size = inode.getSize();
+            byte[] linkTarget;
+            if(size < FAST_SYMLINK_SIZE) {
+                ByteBuffer pointers = ByteBuffer.allocate(FAST_SYMLINK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                for(int pointer : inode.getBlockPointers())
+                    pointers.putInt(pointer);
+                linkTarget = Arrays.copyOf(pointers.array(), (int) size);
+            }
+            else {
+                ByteArrayOutputStream out = new ByteArrayOutputStream((int) size);
+                FileInfo.writeFileData(inode, job.ext2, out);
+                linkTarget = out.toByteArray();
+            }
+
+            job.pendingLinks.put(target, Paths.get(new String(linkTarget, StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     *The task that copies one chunk of a file, through a channel of its own, to the same offset in the host file.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Inode inode;
+        private final Path target;
+        private final long offset;
+        private final Job job;
+
+        private ChunkTask(Inode inode, Path target, long offset, Job job) {
+            this.inode = inode;
+            this.target = target;
+            this.offset = offset;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            try(FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                FileInfo.copyFileData(inode, job.ext2, out, offset, CHUNK_SIZE);
+            }
+            catch (IOException | RuntimeException e) {
+                job.fail(target, e);
+            }
+        }
+    }
+
+    /**
+     *Gives a copied file or directory the permission bits (if the host file system has them) and the modification
+     *time of its inode.
+     */
+    private static void setAttributes(Path target, Inode inode) throws IOException {
+        int bits = inode.getPermissionBits();
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        //The permissions are declared in the same order as the bits, from the owner's read bit down
+        for(int i = 0; i < PERMISSIONS.length; i++) {
+            if((bits & (1 << (PERMISSIONS.length - 1 - i))) != 0)
+                permissions.add(PERMISSIONS[i]);
+        }
+        try {
+            Files.setPosixFilePermissions(target, permissions);
+        }
+        catch (UnsupportedOperationException e) {
+            //not a POSIX file system, so only the modification time is kept
+        }
+        Files.setLastModifiedTime(target, FileTime.from(inode.getModificationTime(), TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,586 @@
+package com.soutzis.ext2;
+
+import java.nio.*;
+import java.nio.channels.*;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class has methods for reading the contents of the disk.
+ *@author Petros Soutzis
+ */
+
+public class FileInfo {
+    //The channel of the standard output, which the contents of files are written to
+    private static final FileChannel STDOUT = new FileOutputStream(FileDescriptor.out).getChannel();
+    //A buffer of zeros, which is written in place of the holes in a file
+    private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(Constants.MAX_BLOCK_SIZE).asReadOnlyBuffer();
+    //The size of the fields of a directory entry before its name: the inode, record length, name length and type
+    private static final int DIRECTORY_ENTRY_HEADER = 8;
+
+    /**
+     * This method will be used to display contents of a directory
+     * @param inode The inode of the given path
+     * @param inodeSize The size of the inode
+     * @param ext2 The disk
+     * @param superblock The superblock
+     * @param groupDescriptor The group descriptor
+     * @throws IOException If the disk can't be read
+     */
+    static void readDirectoryData(Inode inode, int inodeSize, Ext2File ext2, Superblock superblock,
+                                  GroupDescriptor groupDescriptor) throws IOException {
+
+         readBlockData(inode, inodeSize, ext2, superblock, groupDescriptor);
+    }
+
+    /**
+     * This method will be used to print the contents of a file
+     * @param inode The inode of the given path
+     * @param inodeSize The size of the inode
+     * @param ext2 The disk
+     * @param superblock The superblock
+     * @param groupDescriptor The group descriptor
+     * @param path The path that was entered by the user
+     * @return false if the path is not a regular file, true otherwise
+     * @throws IOException If the disk can't be read
+     */
+    static boolean readFileData(Inode inode, int inodeSize, Ext2File ext2, Superblock superblock,
+                                  GroupDescriptor groupDescriptor, String path) throws IOException {
+        if(!isRegularFile(inode, path))
+            return false;
+        //anything that was printed before has to reach stdout before the file's bytes are written past it
+        System.out.flush();
+        writeFileData(inode, ext2, STDOUT);
+        return true;
+    }
+
+    /**
+     * Checks that an inode is a regular file before its block pointers are followed. isFile() is not enough, as the
+     * IFREG bit is also set in the modes of symbolic links and sockets, and the pointers of a fast symbolic link hold
+     * its target instead of block numbers.
+     * @param inode The inode of the given path
+     * @param path The path that was entered by the user
+     * @return true if the inode is a regular file, otherwise false, after printing why
+     */
+    static boolean isRegularFile(Inode inode, String path) {
+        if(inode.getFileType() == Constants.IFREG)
+            return true;
+        System.out.println(path + (inode.isDirectory() ? ": Is a directory." : ": Not a regular file."));
+        return false;
+    }
+
+    /**
+     * This method will be used to print a range of the contents of a file as a hex dump (see HexDump)
+     * @param inode The inode of the given path
+     * @param ext2 The disk
+     * @param path The path that was entered by the user
+     * @param offset The offset of the first byte to print
+     * @param length The maximum number of bytes to print (the range ends at the end of the file)
+     * @return false if the path is not a regular file, true otherwise
+     * @throws IOException If the disk can't be read
+     */
+    static boolean readHexData(Inode inode, Ext2File ext2, String path, long offset, long length)
+            throws IOException {
+        if(!isRegularFile(inode, path))
+            return false;
+        System.out.flush();
+        try(HexDump dump = new HexDump(offset, STDOUT)) {
+            writeFileData(inode, ext2, dump, offset, length);
+        }
+        return true;
+    }
+
+    /**
+     *Writes the exact contents of a file to an output stream, as described by writeFileData(Inode, Ext2File,
+     *WritableByteChannel). If the stream is a FileOutputStream, its channel is written to directly.
+     *@param inode The inode of the file
+     *@param ext2 The disk
+     *@param out The stream that the file's bytes will be written to
+     *@throws IOException If the disk can't be read, or the stream can't be written to
+     */
+    static void writeFileData(Inode inode, Ext2File ext2, OutputStream out) throws IOException {
+        if(out instanceof FileOutputStream)
+            writeFileData(inode, ext2, ((FileOutputStream) out).getChannel());
+        else {
+            out.flush();
+            writeFileData(inode, ext2, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+
+    /**
+     *Writes the exact contents of a file to a channel, as a stream of bytes. Only the first getSize() bytes are
+     *written, so the unused tail of the last block is never included, and holes (block pointers that are 0) are
+     *written as zeros. Each run of physically contiguous blocks is copied from the volume with FileChannel.transferTo (or as views of the mapped
+     *volume), so no byte arrays are allocated and memory use is constant, however large the file is. The blocks that
+     *follow each run are read ahead in the background (see Readahead).
+     *@param inode The inode of the file
+     *@param ext2 The disk
+     *@param out The channel that the file's bytes will be written to
+     *@throws IOException If the disk can't be read, or the channel can't be written to
+     */
+    static void writeFileData(Inode inode, final Ext2File ext2, final WritableByteChannel out) throws IOException {
+        writeFileData(inode, ext2, out, 0, inode.getSize());
+    }
+
+    /**
+     *Writes a range of the contents of a file to a channel, in the same way as writeFileData(Inode, Ext2File,
+     *WritableByteChannel). The blocks before the range are skipped without reading the pointer blocks that only
+     *cover them, so a range at the end of a huge file is reached quickly.
+     *@param inode The inode of the file
+     *@param ext2 The disk
+     *@param out The channel that the file's bytes will be written to
+     *@param offset The offset within the file of the first byte to write
+     *@param length The maximum number of bytes to write (fewer are written if the file ends first)
+     *@throws IOException If the disk can't be read, or the channel can't be written to
+     */
+    static void writeFileData(Inode inode, final Ext2File ext2, final WritableByteChannel out, final long offset,
+                              long length) throws IOException {
+        final long end = Math.min(inode.getSize(), offset + Math.min(length, Long.MAX_VALUE - offset));
+        final int blockSize = ext2.getBlockSize();
+        if(offset >= end)
+            return;
+        //the offset within the file up to which the bytes have been written so far
+        final long[] written = {offset};
+
+        walkRuns(inode, ext2, offset / blockSize, (logicalBlock, physicalBlock, blockCount) -> {
+            long runStart = logicalBlock * blockSize;
+            if(runStart >= end)
+                return false;
+            long from = Math.max(runStart, offset), to = Math.min(runStart + (long) blockCount * blockSize, end);
+            if(to <= from)
+                return true;
+            writeZeros(from - written[0], out);
+            //the next blocks are fetched in the background, while this run is written
+            ext2.getReadahead().access(inode, from, to - from);
+            ext2.transferTo(physicalBlock * blockSize + (from - runStart), to - from, out);
+            written[0] = to;
+            return true;
+        });
+        //a file (or the range) may end in a hole
+        writeZeros(end - written[0], out);
+    }
+
+    /**
+     *Reads length bytes of a file, starting at an offset within it.
+     *@param inode The inode of the file
+     *@param ext2 The disk
+     *@param offset The offset within the file of the first byte to read
+     *@param length The maximum number of bytes to read
+     *@throws IOException If the disk can't be read
+     *@return the bytes that were read, which are fewer than length if the file ends first
+     */
+    static byte[] read(Inode inode, Ext2File ext2, long offset, int length) throws IOException {
+        byte[] data = new byte[(int) Math.max(0, Math.min(length, inode.getSize() - offset))];
+        read(inode, ext2, offset, ByteBuffer.wrap(data));
+
+        return data;
+    }
+
+    /**
+     *Reads bytes of a file into a buffer, starting at an offset within the file, like FileChannel.read(ByteBuffer,
+     *long) does. Each logical block is mapped straight to its physical block by the inode's BlockMap, so only the
+     *pointer blocks on the path to the first block are read, however far into the file the offset is. The blocks
+     *that follow, if they are contiguous on the volume, are read along with it, and holes read as zeros.
+     *@param inode The inode of the file
+     *@param ext2 The disk
+     *@param offset The offset within the file of the first byte to read
+     *@param dst The buffer that the bytes are put into, up to its limit
+     *@throws IOException If the disk can't be read
+     *@return the number of bytes that were read, or -1 if the offset is at or past the end of the file
+     */
+    static int read(Inode inode, Ext2File ext2, long offset, ByteBuffer dst) throws IOException {
+        long size = inode.getSize();
+        if(offset < 0)
+            throw new IllegalArgumentException("Negative offset: " + offset);
+        if(offset >= size)
+            return -1;
+        int length = (int) Math.min(dst.remaining(), size - offset);
+        ext2.getReadahead().access(inode, offset, length);
+        BlockMap map = inode.getBlockMap();
+        int blockSize = ext2.getBlockSize();
+        long end = offset + length;
+
+        while(offset < end) {
+            long logicalBlock = offset / blockSize;
+            long physicalBlock = map.map(logicalBlock, ext2);
+            long runEnd = Math.min(end, (logicalBlock + 1) * blockSize);
+            if(physicalBlock == 0) {
+                ByteBuffer zeros = ZEROS.duplicate();
+                zeros.limit((int) (runEnd - offset));
+                dst.put(zeros);
+            }
+            else {
+                //the blocks that are also contiguous on the volume are read along with the first one
+                for(int n = 1; runEnd < end && runEnd - offset < ext2.getMaxIoSize()
+                        && map.map(logicalBlock + n, ext2) == physicalBlock + n; n++)
+                    runEnd = Math.min(end, runEnd + blockSize);
+                dst.put(ext2.readBuffer(physicalBlock * blockSize + offset % blockSize, runEnd - offset));
+            }
+            offset = runEnd;
+        }
+
+        return length;
+    }
+
+    /**
+     *Copies a range of the contents of a file to the same offsets of a file on the host. Unlike writeFileData(),
+     *nothing is written for the holes of the file, so if the host file was created with the full size of the
+     *file (e.g. with RandomAccessFile.setLength), its holes stay sparse. Each run of blocks is copied with
+     *FileChannel.transferTo, so the bytes do not pass through the Java heap.
+     *@param inode The inode of the file
+     *@param ext2 The disk
+     *@param out The channel of the host file, whose position is moved to each run before it is written
+     *@param offset The offset within the file of the first byte to copy
+     *@param length The maximum number of bytes to copy (fewer are copied if the file ends first)
+     *@throws IOException If the disk can't be read, or the host file can't be written to
+     */
+    static void copyFileData(Inode inode, final Ext2File ext2, final FileChannel out, final long offset,
+                             long length) throws IOException {
+        final long end = Math.min(inode.getSize(), offset + Math.min(length, Long.MAX_VALUE - offset));
+        final int blockSize = ext2.getBlockSize();
+        if(offset >= end)
+            return;
+
+        walkRuns(inode, ext2, offset / blockSize, (logicalBlock, physicalBlock, blockCount) -> {
+            long runStart = logicalBlock * blockSize;
+            if(runStart >= end)
+                return false;
+            long from = Math.max(runStart, offset), to = Math.min(runStart + (long) blockCount * blockSize, end);
+            if(to > from) {
+                out.position(from);
+                ext2.transferTo(physicalBlock * blockSize + (from - runStart), to - from, out);
+            }
+            return true;
+        });
+    }
+
+    /**
+     *Writes count zero bytes to a channel, which is how a hole in a file reads back.
+     */
+    private static void writeZeros(long count, WritableByteChannel out) throws IOException {
+        while(count > 0) {
+            ByteBuffer zeros = ZEROS.duplicate();
+            zeros.limit((int) Math.min(zeros.capacity(), count));
+            count -= zeros.remaining();
+            while(zeros.hasRemaining())
+                out.write(zeros);
+        }
+    }
+
+    /**
+     *This method will readBytes the block pointers values of an inode and if a pointer
+     *points to real data, it will call the appropriate methods to print that data.
+     *Physically contiguous blocks are read as one run, with a single read, and the entries of each run are
+     *printed together, so that their inodes can be fetched in one batch.
+     *@param inode is the Inode, whose block pointers will be readBytes
+     *@throws IOException e
+     */
+    private static void readBlockData(Inode inode, int inodeSize, final Ext2File ext2, final Superblock superblock,
+                                      final GroupDescriptor groupDescriptor) throws IOException {
+        final ArrayList<String> names = new ArrayList<>();
+        final int[][] inodeNumbers = {new int[64]};
+
+        walkRuns(inode, ext2, (logicalBlock, physicalBlock, blockCount) -> {
+            names.clear();
+            for(ByteBuffer block : ext2.readMetadataRun(physicalBlock, blockCount, Metrics.DIRECTORY)) {
+                readDirectoryEntries(block, (inodeNumber, name) -> {
+                    if(names.size() == inodeNumbers[0].length)
+                        inodeNumbers[0] = Arrays.copyOf(inodeNumbers[0], names.size() * 2);
+                    inodeNumbers[0][names.size()] = inodeNumber;
+                    names.add(name);
+                });
+            }
+            printBlockData(Arrays.copyOf(inodeNumbers[0], names.size()), names, inodeSize, ext2, superblock,
+                    groupDescriptor);
+            return true;
+        });
+    }
+
+    /**
+     *This method will print the metadata from the inodes of a list of directory entries.
+     *The inodes are all fetched first, with Inode.readInodes(), so that each inode table block is read only once.
+     *@param inodeNumbers are the inode numbers of the entries
+     *@param names are the names of the entries
+     *@throws IOException e
+     */
+    private static void printBlockData(int[] inodeNumbers, List<String> names, int inodeSize, Ext2File ext2,
+                               Superblock superblock, GroupDescriptor groupDescriptor) throws IOException {
+        Inode[] inodes = Inode.readInodes(inodeNumbers, inodeSize, ext2, superblock, groupDescriptor);
+
+        for(int i=0; i<inodes.length; i++) {
+            Inode iData = inodes[i];
+
+            // Print inode metadata (permissions, date created, etc..)
+            System.out.format("%-12s\t%-4d\t%-7s\t%-7s\t%-12d %-30s\t%-30s%n",
+                    iData.readPermissions(),
+                    iData.getHardLinks(),
+                    iData.getUid(),
+                    iData.getGid(),
+                    iData.getSize(),
+                    iData.getDate(),
+                    names.get(i));
+        }
+    }
+
+    /**
+     *Reads all the used entries of a directory, one run of blocks at a time.
+     *@param directory is the inode of the directory
+     *@param names is the list that the names of the entries will be added to, in the order that they are stored
+     *@throws IOException if a block of the directory could not be read
+     *@return the inode numbers of the entries, in the same order as the names
+     */
+    static int[] readDirectoryEntries(Inode directory, final Ext2File ext2, final List<String> names)
+            throws IOException {
+        final int[][] inodeNumbers = {new int[64]};
+        final int first = names.size();
+
+        walkRuns(directory, ext2, (logicalBlock, physicalBlock, blockCount) -> {
+            for(ByteBuffer block : ext2.readMetadataRun(physicalBlock, blockCount, Metrics.DIRECTORY)) {
+                readDirectoryEntries(block, (inodeNumber, name) -> {
+                    int count = names.size() - first;
+                    if(count == inodeNumbers[0].length)
+                        inodeNumbers[0] = Arrays.copyOf(inodeNumbers[0], count * 2);
+                    inodeNumbers[0][count] = inodeNumber;
+                    names.add(name);
+                });
+            }
+            return true;
+        });
+
+        return Arrays.copyOf(inodeNumbers[0], names.size() - first);
+    }
+
+    /**
+     *A visitor of the entries of a directory block, as they are found by readDirectoryEntries().
+     */
+    interface DirectoryEntryVisitor {
+        /**
+         *@param inodeNumber the number of the inode that the entry refers to
+         *@param name the name of the entry
+         *@throws IOException if the visitor could not process the entry
+         */
+        void visit(int inodeNumber, String name) throws IOException;
+    }
+
+    /**
+     *Reads the used entries of a directory block, in the order that they are stored.
+     *Jumping + recLength each time, to readBytes the next name, if exists
+     *(check http://cs.smith.edu/~nhowe/262/oldlabs/ext2.html Q6)
+     *@param buffer is the directory block
+     *@param visitor is called for every entry whose inode number is not 0 (unused entries have inode 0)
+     *@throws IOException if the visitor failed
+     */
+    static void readDirectoryEntries(ByteBuffer buffer, DirectoryEntryVisitor visitor) throws IOException {
+        int recLength;
+        for(int i=0; i<buffer.limit(); i+=recLength) {
+            int inodeNumber = buffer.getInt(i);
+            //recLength is the value for jumping to the next directory entry, as the index is 4 bytes long
+            recLength = recordLength(buffer, i);
+            //the name length is 8 bits in size, located after recLength
+            int nameLength = buffer.get(i + Constants.BYTE_LENGTH + Constants.SHORT_LENGTH) & 0xFF;
+            //an invalid record length can only come from a corrupted block, and would never move on
+            if(recLength == 0 || nameLength > recLength - DIRECTORY_ENTRY_HEADER)
+                return;
+            if(inodeNumber == 0)
+                continue;
+
+            byte[] nameBytes = new byte[nameLength];
+            for(int k = 0; k < nameBytes.length; k++) {
+                //fetch each char from the array of bytes
+                nameBytes[k] = buffer.get(k + i + (Constants.BYTE_LENGTH * 2));
+            }
+
+            //the name is decoded as it is, so that it is the same name that the hash of a hash tree index covers
+            visitor.visit(inodeNumber, new String(nameBytes));
+        }
+    }
+
+    /**
+     *Looks a name up in a directory block, by the bytes of the names as they are stored, so no name is decoded.
+     *@param buffer is the directory block
+     *@param name is the bytes of the name to look for
+     *@return the inode number of the entry with that name, or 0 if the block has none
+     */
+    static int findDirectoryEntry(ByteBuffer buffer, byte[] name) {
+        int recLength;
+        for(int i=0; i<buffer.limit(); i+=recLength) {
+            recLength = recordLength(buffer, i);
+            int nameLength = buffer.get(i + Constants.BYTE_LENGTH + Constants.SHORT_LENGTH) & 0xFF;
+            if(recLength == 0 || nameLength > recLength - DIRECTORY_ENTRY_HEADER)
+                return 0;
+            int inodeNumber = buffer.getInt(i);
+            if(inodeNumber == 0 || nameLength != name.length)
+                continue;
+            int k = 0;
+            while(k < name.length && buffer.get(k + i + (Constants.BYTE_LENGTH * 2)) == name[k])
+                k++;
+            if(k == name.length)
+                return inodeNumber;
+        }
+        return 0;
+    }
+
+    /**
+     *Reads the record length of a directory entry, which is the distance to the next entry. It is an unsigned 16-bit
+     *value, so in a 64K block, where the last entry can span the whole block, it is encoded like e2fsprogs does
+     *(ext2fs_get_rec_len()): 0 or 65535 stand for 65536, and the lowest two bits hold the bits above the 16th.
+     *@param buffer is the directory block
+     *@param offset is the offset of the entry in the block
+     *@return the record length, or 0 if it is shorter than an entry, not a multiple of 4, or runs past the end of
+     *the block
+     */
+    private static int recordLength(ByteBuffer buffer, int offset) {
+        int length = buffer.getShort(offset + Constants.BYTE_LENGTH) & 0xFFFF;
+        if(buffer.limit() >= Constants.MAX_BLOCK_SIZE)
+            length = length == 0 || length == 0xFFFF ? Constants.MAX_BLOCK_SIZE : (length & ~3) | (length & 3) << 16;
+        if(length < DIRECTORY_ENTRY_HEADER || (length & 3) != 0 || offset + length > buffer.limit())
+            return 0;
+        return length;
+    }
+
+    /**
+     *A visitor of the data blocks of an inode, as they are found by walkBlocks().
+     */
+    interface BlockVisitor {
+        /**
+         *@param logicalBlock the index of the block within the file (block 0 holds the first bytes of the file)
+         *@param physicalBlock the number of the block on the volume (block pointers are unsigned 32-bit values)
+         *@throws IOException if the visitor could not read or process the block
+         *@return true to carry on walking, false to stop
+         */
+        boolean visit(long logicalBlock, long physicalBlock) throws IOException;
+    }
+
+    /**
+     *Walks all the data blocks of an inode in logical order, following the direct, indirect, double indirect and
+     *triple indirect pointers. Pointers that are 0 are holes, so they are skipped (along with all the blocks that an
+     *indirect pointer would cover), but the logical block numbers of the blocks that follow are still correct.
+     *@param inode is the Inode, whose block pointers will be walked
+     *@param visitor is called for every data block, until it returns false
+     *@throws IOException if a pointer block could not be read
+     */
+    static void walkBlocks(Inode inode, Ext2File ext2, BlockVisitor visitor) throws IOException {
+        walkBlocks(inode, ext2, 0, visitor);
+    }
+
+    /**
+     *Walks the data blocks of an inode like walkBlocks(Inode, Ext2File, BlockVisitor) does, starting at a logical
+     *block. Pointer blocks that only cover blocks before the first one are never read.
+     *@param inode is the Inode, whose block pointers will be walked
+     *@param firstBlock is the logical number of the first block that the visitor will be called for
+     *@param visitor is called for every data block from firstBlock onwards, until it returns false
+     *@throws IOException if a pointer block could not be read
+     */
+    static void walkBlocks(Inode inode, Ext2File ext2, long firstBlock, BlockVisitor visitor) throws IOException {
+        int[] blockPointers = inode.getBlockPointers();
+        long pointersPerBlock = ext2.getBlockSize() / Constants.BYTE_LENGTH;
+
+        for (int i=(int) Math.min(firstBlock, Constants.DIRECT_POINTERS_COUNT); i<Constants.DIRECT_POINTERS_COUNT;
+             i++) {
+            if(blockPointers[i] != 0 && !visitor.visit(i, Integer.toUnsignedLong(blockPointers[i])))
+                return;
+        }
+
+        //the first logical block and the number of data blocks that each of the indirect pointers covers
+        long logicalBlock = Constants.DIRECT_POINTERS_COUNT, span = pointersPerBlock;
+        for (int i=Constants.INDIRECT_POINTER; i<=Constants.TRIPLE_INDIRECT_POINTER; i++) {
+            if(blockPointers[i] != 0 && logicalBlock + span > firstBlock
+                    && !walkPointerBlock(Integer.toUnsignedLong(blockPointers[i]), span/pointersPerBlock, logicalBlock,
+                    firstBlock, ext2, visitor))
+                return;
+            logicalBlock += span;
+            span *= pointersPerBlock;
+        }
+    }
+
+    /**
+     *Walks the data blocks that are reachable from a block of pointers.
+     *@param blockNumber is the number of the pointer block
+     *@param entrySpan is the number of data blocks that each entry of the pointer block covers
+     *(1 for an indirect block, pointersPerBlock for a double indirect block, and so on)
+     *@param logicalBlock is the logical number of the first data block that this pointer block covers
+     *@param firstBlock is the logical number of the first block to visit (the entries before it are skipped)
+     *@return false if the visitor asked to stop
+     */
+    private static boolean walkPointerBlock(long blockNumber, long entrySpan, long logicalBlock, long firstBlock,
+                                            Ext2File ext2, BlockVisitor visitor) throws IOException {
+        ByteBuffer buffer = ext2.readMetadataBlock(blockNumber, Metrics.INDIRECT);
+
+        for(int i=0; i<buffer.limit(); i+=Constants.BYTE_LENGTH, logicalBlock+=entrySpan) {
+            long pointer = Integer.toUnsignedLong(buffer.getInt(i));
+            if(pointer == 0 || logicalBlock + entrySpan <= firstBlock)
+                continue;
+            if(entrySpan == 1) {
+                if(!visitor.visit(logicalBlock, pointer))
+                    return false;
+            }
+            else if(!walkPointerBlock(pointer, entrySpan/(buffer.limit()/Constants.BYTE_LENGTH), logicalBlock,
+                    firstBlock, ext2, visitor))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     *A visitor of the runs of physically contiguous data blocks of an inode, as they are found by walkRuns().
+     */
+    interface RunVisitor {
+        /**
+         *@param logicalBlock the index within the file of the first block of the run
+         *@param physicalBlock the number of the first block of the run on the volume
+         *@param blockCount the number of blocks in the run
+         *@throws IOException if the visitor could not read or process the run
+         *@return true to carry on walking, false to stop
+         */
+        boolean visit(long logicalBlock, long physicalBlock, int blockCount) throws IOException;
+    }
+
+    /**
+     *Walks the data blocks of an inode like walkBlocks() does, but merges consecutive blocks that are also
+     *consecutive on the volume into runs, so that each run can be read with a single I/O.
+     *A run is never longer than the maximum I/O size of the Ext2File.
+     *@param inode is the Inode, whose block pointers will be walked
+     *@param visitor is called for every run, until it returns false
+     *@throws IOException if a pointer block could not be read
+     */
+    static void walkRuns(Inode inode, Ext2File ext2, final RunVisitor visitor) throws IOException {
+        walkRuns(inode, ext2, 0, visitor);
+    }
+
+    /**
+     *Walks the runs of data blocks of an inode like walkRuns(Inode, Ext2File, RunVisitor) does, starting at a
+     *logical block (see walkBlocks(Inode, Ext2File, long, BlockVisitor)).
+     *@param inode is the Inode, whose block pointers will be walked
+     *@param firstBlock is the logical number of the first block that will be part of a run
+     *@param visitor is called for every run, until it returns false
+     *@throws IOException if a pointer block could not be read
+     */
+    static void walkRuns(Inode inode, Ext2File ext2, long firstBlock, final RunVisitor visitor) throws IOException {
+        final int maxBlocks = Math.max(1, ext2.getMaxIoSize() / ext2.getBlockSize());
+        //the logical block, physical block and length of the run that is being built
+        final long[] run = {0, 0, 0};
+        final boolean[] stopped = {false};
+
+        walkBlocks(inode, ext2, firstBlock, (logicalBlock, physicalBlock) -> {
+            if(run[2] > 0 && run[2] < maxBlocks
+                    && logicalBlock == run[0] + run[2] && physicalBlock == run[1] + run[2]) {
+                run[2]++;
+                return true;
+            }
+            if(run[2] > 0 && !visitor.visit(run[0], run[1], (int) run[2])) {
+                stopped[0] = true;
+                return false;
+            }
+            run[0] = logicalBlock;
+            run[1] = physicalBlock;
+            run[2] = 1;
+            return true;
+        });
+
+        if(!stopped[0] && run[2] > 0)
+            visitor.visit(run[0], run[1], (int) run[2]);
+    }
+}
@@ -0,0 +1,283 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
+
+/**
+ *This class implements the "find" command. The tree under a path is walked in parallel on a ForkJoin pool, one
+ *task per directory, and every entry is tested against predicates on its name and on the fields of its inode.
+ *The predicates only need the decoded inode, so no data block is ever read, apart from the blocks of the
+ *directories that are walked. Matching paths are printed as soon as they are found, so their order is not fixed.
+ *Supported predicates (all of them have to match):
+ *-name GLOB, -type [fdlbcps], -size [+-]N[ckMG], -uid N, -gid N, -atime/-ctime/-mtime/-dtime [+-]DAYS
+ *@author Petros Soutzis
+ */
+class Find {
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /**
+     *Parses the predicates of a find command and prints every path under the given inode that matches all of them.
+     *@param inode The inode of the path to start from
+     *@param path The path to start from, as entered by the user, which every printed path will start with
+     *@param args The predicates, as entered by the user
+     *@param inodeSize The inode size
+     *@param ext2 The disk
+     *@param superblock The superblock
+     *@param groupDescriptor The group descriptor
+     *@return false if the predicates are not valid or a directory could not be read, true otherwise
+     */
+    static boolean find(Inode inode, String path, String[] args, int inodeSize, Ext2File ext2, Superblock superblock,
+                     GroupDescriptor groupDescriptor) {
+        BiPredicate<String, Inode> predicate;
+        try {
+            predicate = parse(args);
+        }
+        catch (IllegalArgumentException e) {
+            System.out.println("find: " + e.getMessage());
+            return false;
+        }
+
+        String[] fragments = path.split("/");
+        String name = fragments.length > 0 ? fragments[fragments.length - 1] : path;
+        if(predicate.test(name, inode))
+            System.out.println(path);
+
+        if(inode.isDirectory()) {
+            String prefix = path.endsWith("/") ? path : path + "/";
+            try {
+                POOL.invoke(new DirectoryTask(inode, prefix, predicate, inodeSize, ext2, superblock, groupDescriptor));
+            }
+            catch (UncheckedIOException e) {
+                System.out.println("find: " + e.getCause().getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     *Turns the predicate arguments into a single predicate, which is true if all of them are true.
+     *@param args The predicates, as entered by the user
+     *@throws IllegalArgumentException if a predicate is unknown, or its value is missing or malformed
+     *@return the combined predicate, tested with the name of an entry and its inode
+     */
+    static BiPredicate<String, Inode> parse(String[] args) {
+        BiPredicate<String, Inode> predicate = (name, inode) -> true;
+        final long now = System.currentTimeMillis() / 1000;
+
+        for(int i = 0; i < args.length; i += 2) {
+            if(i + 1 >= args.length)
+                throw new IllegalArgumentException("missing argument to `" + args[i] + "'");
+            final String value = args[i + 1];
+            BiPredicate<String, Inode> next;
+
+            switch (args[i]) {
+                case "-name":
+                    final Pattern glob = globToPattern(value);
+                    next = (name, inode) -> glob.matcher(name).matches();
+                    break;
+                case "-type":
+                    final int type = parseType(value);
+                    next = (name, inode) -> inode.getFileType() == type;
+                    break;
+                case "-size":
+                    next = parseSize(value);
+                    break;
+                case "-uid":
+                    final int uid = parseNumber(value);
+                    next = (name, inode) -> inode.getUidNumber() == uid;
+                    break;
+                case "-gid":
+                    final int gid = parseNumber(value);
+                    next = (name, inode) -> inode.getGidNumber() == gid;
+                    break;
+                case "-atime":
+                    next = parseDays(value, now, Inode::getAccessTime);
+                    break;
+                case "-ctime":
+                    next = parseDays(value, now, Inode::getCreationTime);
+                    break;
+                case "-mtime":
+                    next = parseDays(value, now, Inode::getModificationTime);
+                    break;
+                case "-dtime":
+                    final BiPredicate<String, Inode> days = parseDays(value, now, Inode::getDeletionTime);
+                    //a deletion time of 0 means that the inode was never deleted, not that it is very old
+                    next = (name, inode) -> inode.getDeletionTime() != 0 && days.test(name, inode);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown predicate `" + args[i] + "'");
+            }
+            predicate = predicate.and(next);
+        }
+
+        return predicate;
+    }
+
+    /**
+     *Converts a shell glob (*, ? and [...], where [!...] is negated) into a regular expression
+     */
+    private static Pattern globToPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        boolean inClass = false, classStart = false;
+        for(char c : glob.toCharArray()) {
+            if(classStart && c == '!') {
+                //a glob negates a class with '!', a regular expression with '^'
+                regex.append('^');
+                classStart = false;
+            }
+            else if(inClass) {
+                regex.append(c == '\\' ? "\\\\" : String.valueOf(c));
+                inClass = c != ']';
+                classStart = false;
+            }
+            else if(c == '*')
+                regex.append(".*");
+            else if(c == '?')
+                regex.append('.');
+            else if(c == '[') {
+                regex.append('[');
+                inClass = true;
+                classStart = true;
+            }
+            else
+                regex.append(Pattern.quote(String.valueOf(c)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static int parseType(String value) {
+        switch (value) {
+            case "f": return Constants.IFREG;
+            case "d": return Constants.IFDIR;
+            case "l": return Constants.IFLNK;
+            case "b": return Constants.IFBLK;
+            case "c": return Constants.IFCHR;
+            case "p": return Constants.IFIFO;
+            case "s": return Constants.IFSCK;
+            default: throw new IllegalArgumentException("unknown argument to -type: " + value);
+        }
+    }
+
+    private static int parseNumber(String value) {
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid number `" + value + "'");
+        }
+    }
+
+    /**
+     *Parses the value of -size, like GNU find does: the size is rounded up to units of c (bytes), k (KiB),
+     *M (MiB), G (GiB) or, if no unit is given, 512-byte blocks. A leading + means more than, and - less than.
+     */
+    private static BiPredicate<String, Inode> parseSize(String value) {
+        char suffix = value.isEmpty() ? '0' : value.charAt(value.length() - 1);
+        //the number without its unit suffix, if there is one
+        String number = Character.isDigit(suffix) ? value : value.substring(0, value.length() - 1);
+        long unit;
+        switch (suffix) {
+            case 'c': unit = 1; break;
+            case 'k': unit = 1024; break;
+            case 'M': unit = 1024 * 1024; break;
+            case 'G': unit = 1024 * 1024 * 1024; break;
+            default:
+                if(!Character.isDigit(suffix))
+                    throw new IllegalArgumentException("invalid -size type `" + suffix
+                            + "' (usage: -size [+-]N[c|k|M|G])");
+                unit = 512;
+        }
+        final int sign = compareSign(number);
+        final long size = parseNumber(sign == 0 ? number : number.substring(1));
+        final long unitSize = unit;
+
+        return (name, inode) -> Long.signum((inode.getSize() + unitSize - 1) / unitSize - size) == sign;
+    }
+
+    /**
+     *Parses the value of a time predicate: the number of whole days since the time was set, where a leading +
+     *means more than, and - less than.
+     */
+    private static BiPredicate<String, Inode> parseDays(String value, final long now, final InodeTime time) {
+        final int sign = compareSign(value);
+        final long days = parseNumber(sign == 0 ? value : value.substring(1));
+
+        return (name, inode) -> Long.signum((now - time.get(inode)) / SECONDS_PER_DAY - days) == sign;
+    }
+
+    /**
+     *@return 1 for a leading +, -1 for a leading -, or 0 for an exact match
+     */
+    private static int compareSign(String value) {
+        if(value.startsWith("+"))
+            return 1;
+        return value.startsWith("-") ? -1 : 0;
+    }
+
+    /**
+     *One of the timestamps of an inode
+     */
+    private interface InodeTime {
+        long get(Inode inode);
+    }
+
+    /**
+     *The task that walks one directory. It tests every entry against the predicate and forks a new task for every
+     *subdirectory, so that the subdirectories are walked in parallel.
+     */
+    private static class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Inode directory;
+        private final String prefix;
+        private final BiPredicate<String, Inode> predicate;
+        private final int inodeSize;
+        private final Ext2File ext2;
+        private final Superblock superblock;
+        private final GroupDescriptor groupDescriptor;
+
+        private DirectoryTask(Inode directory, String prefix, BiPredicate<String, Inode> predicate, int inodeSize,
+                              Ext2File ext2, Superblock superblock, GroupDescriptor groupDescriptor) {
+            this.directory = directory;
+            this.prefix = prefix;
+            this.predicate = predicate;
+            this.inodeSize = inodeSize;
+            this.ext2 = ext2;
+            this.superblock = superblock;
+            this.groupDescriptor = groupDescriptor;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try {
+                List<String> names = new ArrayList<>();
+                int[] inodeNumbers = FileInfo.readDirectoryEntries(directory, ext2, names);
+                Inode[] inodes = Inode.readInodes(inodeNumbers, inodeSize, ext2, superblock, groupDescriptor);
+
+                for(int i = 0; i < inodes.length; i++) {
+                    if(names.get(i).equals(".") || names.get(i).equals(".."))
+                        continue;
+                    String path = prefix + names.get(i);
+                    if(predicate.test(names.get(i), inodes[i]))
+                        System.out.println(path);
+                    if(inodes[i].isDirectory())
+                        subdirectories.add(new DirectoryTask(inodes[i], path + "/", predicate, inodeSize, ext2,
+                                superblock, groupDescriptor));
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            invokeAll(subdirectories);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.soutzis.ext2;
+
+import java.nio.*;
+
+/**
+ *This class reads the whole Group Descriptor table, which describes every block group of the volume.
+ *The fields of the descriptors are kept in one primitive array per field (rather than in an object per group), so
+ *even the hundreds of thousands of groups of a volume that is several TB large take up little memory.
+ *@author Petros Soutzis, 2017-19
+ */
+
+public class GroupDescriptor
+{
+    //The offsets of the fields within each 32-byte group descriptor
+    private static final int BLOCK_BITMAP_OFFSET = 0;
+    private static final int INODE_BITMAP_OFFSET = 4;
+    private static final int INODE_TABLE_OFFSET = 8;
+    private static final int FREE_BLOCKS_COUNT_OFFSET = 12;
+    private static final int FREE_INODES_COUNT_OFFSET = 14;
+    private static final int USED_DIRS_COUNT_OFFSET = 16;
+
+    private ByteBuffer buffer; //A bytebuffer to hold the group descriptor data
+    private int groupCount;  //The number of block groups
+    //The block numbers of the bitmaps and inode table of each group (unsigned 32-bit values)
+    private int[] blockBitmap, inodeBitmap, inodeTable;
+    //The free block, free inode and directory counts of each group (unsigned 16-bit values)
+    private short[] freeBlocksCount, freeInodesCount, usedDirsCount;
+
+    /**
+     *Constructor of the GroupDescriptor class
+     *@param bytes is the array of bytes that the group descriptor class will use
+     *@param groupCount is the number of block groups, calculated from data obtained from the SuperBlock
+     */
+    public GroupDescriptor(byte[] bytes, int groupCount) {
+        this(ByteBuffer.wrap(bytes), groupCount);
+    }
+
+    /**
+     *Constructor of the GroupDescriptor class
+     *@param buffer is a view of the group descriptor table, starting at position 0, that holds groupCount descriptors
+     *@param groupCount is the number of block groups, calculated from data obtained from the SuperBlock
+     */
+    public GroupDescriptor(ByteBuffer buffer, int groupCount) {
+        this.buffer = buffer;
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.groupCount = groupCount;
+        blockBitmap = new int[groupCount];
+        inodeBitmap = new int[groupCount];
+        inodeTable = new int[groupCount];
+        freeBlocksCount = new short[groupCount];
+        freeInodesCount = new short[groupCount];
+        usedDirsCount = new short[groupCount];
+        read(); //init
+    }
+
+    /**
+     *This method reads the group descriptor of each block group into the arrays of its fields
+     */
+    private void read()
+    {
+        for (int i = 0; i< groupCount; i++) {
+            int offset = Constants.GDESCRIPTOR_SIZE * i;
+            blockBitmap[i] = buffer.getInt(offset + BLOCK_BITMAP_OFFSET);
+            inodeBitmap[i] = buffer.getInt(offset + INODE_BITMAP_OFFSET);
+            inodeTable[i] = buffer.getInt(offset + INODE_TABLE_OFFSET);
+            freeBlocksCount[i] = buffer.getShort(offset + FREE_BLOCKS_COUNT_OFFSET);
+            freeInodesCount[i] = buffer.getShort(offset + FREE_INODES_COUNT_OFFSET);
+            usedDirsCount[i] = buffer.getShort(offset + USED_DIRS_COUNT_OFFSET);
+        }
+        //the fields have been copied, so the table itself does not need to be kept
+        buffer = null;
+    }
+
+    /**
+     *@return the number of block groups
+     */
+    int getGroupCount() {
+
+        return groupCount;
+    }
+
+    /**
+     *@param group the index of the block group
+     *@return the number of the first block of the group's inode table
+     */
+    long getInodeTable(int group) {
+
+        return Integer.toUnsignedLong(inodeTable[group]);
+    }
+
+    /**
+     *@param group the index of the block group
+     *@return the number of the block that holds the group's block bitmap
+     */
+    long getBlockBitmap(int group) {
+
+        return Integer.toUnsignedLong(blockBitmap[group]);
+    }
+
+    /**
+     *@param group the index of the block group
+     *@return the number of the block that holds the group's inode bitmap
+     */
+    long getInodeBitmap(int group) {
+
+        return Integer.toUnsignedLong(inodeBitmap[group]);
+    }
+
+    /**
+     *@param group the index of the block group
+     *@return the number of free blocks in the group
+     */
+    int getFreeBlocksCount(int group) {
+
+        return freeBlocksCount[group] & 0xFFFF;
+    }
+
+    /**
+     *@param group the index of the block group
+     *@return the number of free inodes in the group
+     */
+    int getFreeInodesCount(int group) {
+
+        return freeInodesCount[group] & 0xFFFF;
+    }
+
+    /**
+     *@param group the index of the block group
+     *@return the number of directories in the group
+     */
+    int getUsedDirsCount(int group) {
+
+        return usedDirsCount[group] & 0xFFFF;
+    }
+}
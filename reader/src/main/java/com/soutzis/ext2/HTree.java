@@ -0,0 +1,344 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *This class looks names up in the directories that have a hash tree index (the dir_index feature), by the hash of
+ *the name, so that a lookup only reads the blocks on the path from the root of the tree to the leaf that holds the
+ *name: two blocks, or three if the tree has a level of index nodes, no matter how many entries the directory has.
+ *The first block of an indexed directory is the root of the tree. After the "." and ".." entries, which look like
+ *normal entries to readers that know nothing of the index, it holds the version of the hash, the number of levels
+ *of index nodes, and a sorted array of (hash, block) entries. Each entry points to the logical block of the node
+ *(or leaf) that holds the names whose hashes start from its hash, up to the hash of the next entry. The leaves are
+ *normal directory blocks. When the names of one hash are split between two leaves, the entry of the second leaf
+ *has the same hash with its lowest bit set, so a name that is not in its leaf is looked for in the next leaves, for
+ *as long as the hashes of their entries are the hash of the name once their lowest bits are cleared.
+ *The names in the leaves are compared by their bytes on the disk, which are the bytes that their hashes were computed
+ *from, so a name that is not in the leaves of its hash is not in the directory at all.
+ *A directory whose index can not be used (its hash version is not supported, or the root does not look like one) is
+ *looked up by the caller as if it had no index, like the kernel falls back to a linear scan.
+ *The hashes are the legacy one, half MD4 and TEA, as ext2fs computes them (in lib/ext2fs/dirhash.c), each with the
+ *bytes of the names taken as signed or as unsigned, as the flags of the superblock say.
+ *@author Petros Soutzis
+ */
+class HTree {
+    //The value that lookup() returns for a directory that has no usable index
+    static final int NOT_INDEXED = -1;
+    //The hash versions, as stored in the root. The unsigned versions are never stored, but are used instead of the
+    //signed ones if the superblock has the FLAGS_UNSIGNED_HASH flag.
+    static final int LEGACY = 0, HALF_MD4 = 1, TEA = 2, LEGACY_UNSIGNED = 3, HALF_MD4_UNSIGNED = 4, TEA_UNSIGNED = 5;
+    //The most levels that a tree can have, including the root (ext2 trees have at most two, ext4 ones three)
+    private static final int MAX_LEVELS = 3;
+    //The offset of the root information in the root block, after the "." entry and the header of the ".." entry
+    private static final int ROOT_INFO_OFFSET = 24;
+    //The offset of the entries in an index node, after the header of an empty entry that covers the whole block
+    private static final int NODE_ENTRIES_OFFSET = 8;
+    private static final int ENTRY_SIZE = 8;
+    //Only the lower 28 bits of the block of an index entry are the block, the rest are reserved
+    private static final int BLOCK_MASK = 0x0FFFFFFF;
+    //The seed of the hash, if the superblock has none
+    private static final int[] DEFAULT_SEED = {0x67452301, 0xefcdab89, 0x98badcfe, 0x10325476};
+    private static final int TEA_DELTA = 0x9E3779B9;
+    private static final int MD4_K2 = 0x5A827999, MD4_K3 = 0x6ED9EBA1;
+
+    private final boolean enabled; //false if the filesystem does not have the dir_index feature
+    private final boolean unsignedHash;
+    private final int[] seed;
+    private final LongAdder lookups = new LongAdder(), blocks = new LongAdder(), fallbacks = new LongAdder();
+
+    /**
+     *Constructor of the HTree class
+     *@param superblock the superblock, which holds the features of the filesystem and the seed of the hash
+     */
+    HTree(Superblock superblock) {
+        enabled = (superblock.getFeatureCompat() & Constants.FEATURE_COMPAT_DIR_INDEX) != 0;
+        //if neither flag is set, the hash is signed, as the char of the x86 kernels that created the trees was
+        int flags = superblock.getFlags();
+        unsignedHash = (flags & Constants.FLAGS_UNSIGNED_HASH) != 0 && (flags & Constants.FLAGS_SIGNED_HASH) == 0;
+        int[] hashSeed = superblock.getHashSeed();
+        boolean zero = true;
+        for(int word : hashSeed)
+            zero &= word == 0;
+        seed = zero ? DEFAULT_SEED : hashSeed.clone();
+    }
+
+    /**
+     *Looks a name up in a directory, by its hash tree index.
+     *@param name is the name of the directory or file to look for
+     *@param directory is the inode of the directory to look in
+     *@param ext2 is the disk
+     *@throws IOException if a block of the directory could not be read
+     *@return the inode number of the entry, 0 if there is no such entry, or NOT_INDEXED if the directory does not
+     *have an index that can be used
+     */
+    int lookup(String name, Inode directory, Ext2File ext2) throws IOException {
+        if(!enabled || !directory.isHashIndexed())
+            return NOT_INDEXED;
+        //a name with a replacement character was decoded from bytes that the default charset does not map, so it
+        //can not be encoded back to the bytes on the disk, and is left to the names as they were decoded
+        if(name.indexOf('\uFFFD') >= 0)
+            return fallBack();
+        byte[] bytes = name.getBytes();
+
+        ByteBuffer root = readBlock(directory, 0, ext2);
+        if(root == null)
+            return fallBack();
+        int version = root.get(ROOT_INFO_OFFSET + 4) & 0xFF;
+        int infoLength = root.get(ROOT_INFO_OFFSET + 5) & 0xFF;
+        int levels = (root.get(ROOT_INFO_OFFSET + 6) & 0xFF) + 1;
+        if(root.getInt(ROOT_INFO_OFFSET) != 0 || version > TEA || infoLength < 8 || levels > MAX_LEVELS)
+            return fallBack();
+        lookups.increment();
+        //"." and ".." are only in the first block, and not in the tree
+        if(name.equals(".") || name.equals(".."))
+            return FileInfo.findDirectoryEntry(root, bytes);
+        if(unsignedHash)
+            version += LEGACY_UNSIGNED;
+        int hash = hash(bytes, version, seed);
+
+        //the node of every level on the path to the leaf, the offset of its entries, their count, and the entry
+        //that was followed
+        ByteBuffer[] nodes = new ByteBuffer[levels];
+        int[] offsets = new int[levels], counts = new int[levels], at = new int[levels];
+        nodes[0] = root;
+        offsets[0] = ROOT_INFO_OFFSET + infoLength;
+        for(int level = 0; level < levels; level++) {
+            if(level > 0) {
+                nodes[level] = readBlock(directory, entryBlock(nodes[level - 1], offsets[level - 1],
+                        at[level - 1]), ext2);
+                offsets[level] = NODE_ENTRIES_OFFSET;
+            }
+            if(nodes[level] == null || !readCount(nodes[level], offsets[level], counts, level))
+                return fallBack();
+            at[level] = search(nodes[level], offsets[level], counts[level], hash);
+        }
+
+        while(true) {
+            ByteBuffer leaf = readBlock(directory, entryBlock(nodes[levels - 1], offsets[levels - 1],
+                    at[levels - 1]), ext2);
+            if(leaf == null)
+                return fallBack();
+            int inodeNumber = FileInfo.findDirectoryEntry(leaf, bytes);
+            if(inodeNumber > 0)
+                return inodeNumber;
+
+            //the names with this hash may carry on into the next leaf, whose hash is then the same once its lowest
+            //bit is cleared, so move to the next entry of the lowest level that has one
+            int level = levels - 1;
+            while(level >= 0 && ++at[level] >= counts[level])
+                level--;
+            if(level < 0 || (entryHash(nodes[level], offsets[level], at[level]) & ~1) != hash)
+                return 0;
+            //and follow its first entries down to the leaf
+            for(level++; level < levels; level++) {
+                nodes[level] = readBlock(directory, entryBlock(nodes[level - 1], offsets[level - 1],
+                        at[level - 1]), ext2);
+                offsets[level] = NODE_ENTRIES_OFFSET;
+                if(nodes[level] == null || !readCount(nodes[level], offsets[level], counts, level))
+                    return fallBack();
+                at[level] = 0;
+            }
+        }
+    }
+
+    /**
+     *Reads the number of entries of an index node, and checks that they fit in its block.
+     *@return false if the node is corrupted
+     */
+    private static boolean readCount(ByteBuffer node, int offset, int[] counts, int level) {
+        //the first entry holds the limit and the count of the entries in place of its hash
+        int limit = node.getShort(offset) & 0xFFFF;
+        counts[level] = node.getShort(offset + Constants.SHORT_LENGTH) & 0xFFFF;
+        return counts[level] > 0 && counts[level] <= limit && offset + limit * ENTRY_SIZE <= node.limit();
+    }
+
+    /**
+     *@return the index of the last entry of a node whose hash is not greater than the hash (the first entry has
+     *no hash, and covers every hash before the second one)
+     */
+    private static int search(ByteBuffer node, int offset, int count, int hash) {
+        int low = 1, high = count - 1;
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            if(Integer.compareUnsigned(entryHash(node, offset, middle), hash) > 0)
+                high = middle - 1;
+            else
+                low = middle + 1;
+        }
+        return low - 1;
+    }
+
+    private static int entryHash(ByteBuffer node, int offset, int entry) {
+        return node.getInt(offset + entry * ENTRY_SIZE);
+    }
+
+    private static int entryBlock(ByteBuffer node, int offset, int entry) {
+        return node.getInt(offset + entry * ENTRY_SIZE + Constants.BYTE_LENGTH) & BLOCK_MASK;
+    }
+
+    /**
+     *Reads a logical block of a directory.
+     *@return the block, or null if it is a hole or past the end of the directory, which a valid tree never
+     *points to
+     */
+    private ByteBuffer readBlock(Inode directory, long logicalBlock, Ext2File ext2) throws IOException {
+        int blockSize = ext2.getBlockSize();
+        if(logicalBlock >= (directory.getSize() + blockSize - 1) / blockSize)
+            return null;
+        long physicalBlock = directory.getBlockMap().map(logicalBlock, ext2);
+        if(physicalBlock == 0)
+            return null;
+        blocks.increment();
+        return ext2.readMetadataBlock(physicalBlock, Metrics.DIRECTORY);
+    }
+
+    private int fallBack() {
+        fallbacks.increment();
+        return NOT_INDEXED;
+    }
+
+    @Override
+    public String toString() {
+        long count = lookups.sum();
+        return String.format("hash tree: %d lookups, %.1f blocks per lookup, %d fell back to a linear scan", count,
+                count == 0 ? 0.0 : blocks.sum() / (double) count, fallbacks.sum());
+    }
+
+    /**
+     *Computes the hash of a name, as it is stored in the index entries.
+     *@param name the bytes of the name
+     *@param version the hash version (LEGACY, HALF_MD4, TEA, or one of their unsigned versions)
+     *@param seed the seed of the hash (4 ints)
+     *@return the hash, with its lowest bit clear
+     */
+    static int hash(byte[] name, int version, int[] seed) {
+        int[] buffer = seed.clone();
+        int[] in = new int[8];
+        boolean unsigned = version >= LEGACY_UNSIGNED;
+        int hash;
+        switch (version) {
+            case LEGACY:
+            case LEGACY_UNSIGNED:
+                hash = legacyHash(name, unsigned);
+                break;
+            case HALF_MD4:
+            case HALF_MD4_UNSIGNED:
+                for(int from = 0; from < name.length; from += 32) {
+                    toHashBuffer(name, from, in, 8, unsigned);
+                    halfMd4Transform(buffer, in);
+                }
+                hash = buffer[1];
+                break;
+            case TEA:
+            case TEA_UNSIGNED:
+                for(int from = 0; from < name.length; from += 16) {
+                    toHashBuffer(name, from, in, 4, unsigned);
+                    teaTransform(buffer, in);
+                }
+                hash = buffer[0];
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported hash version: " + version);
+        }
+
+        hash &= ~1;
+        //the greatest hash marks the end of a directory for readdir, so no name may have it
+        if(hash == 0x7FFFFFFF << 1)
+            hash = 0x7FFFFFFE << 1;
+        return hash;
+    }
+
+    private static int legacyHash(byte[] name, boolean unsigned) {
+        int hash0 = 0x12a3fe2d, hash1 = 0x37abe8f9;
+        for(byte b : name) {
+            int hash = hash1 + (hash0 ^ ((unsigned ? b & 0xFF : b) * 7152373));
+            if((hash & 0x80000000) != 0)
+                hash -= 0x7fffffff;
+            hash1 = hash0;
+            hash0 = hash;
+        }
+        return hash0 << 1;
+    }
+
+    /**
+     *Packs the bytes of a name from an offset into words, 4 bytes per word with the first one the most significant,
+     *and pads the rest of the words with the length of the bytes that are left.
+     */
+    private static void toHashBuffer(byte[] name, int from, int[] buffer, int words, boolean unsigned) {
+        int length = name.length - from;
+        int pad = length | (length << 8);
+        pad |= pad << 16;
+        int value = pad, word = 0;
+        for(int i = 0; i < Math.min(length, words * 4); i++) {
+            value = (unsigned ? name[from + i] & 0xFF : name[from + i]) + (value << 8);
+            if(i % 4 == 3) {
+                buffer[word++] = value;
+                value = pad;
+            }
+        }
+        if(word < words)
+            buffer[word++] = value;
+        while(word < words)
+            buffer[word++] = pad;
+    }
+
+    private static void teaTransform(int[] buffer, int[] in) {
+        int sum = 0, b0 = buffer[0], b1 = buffer[1];
+        for(int n = 0; n < 16; n++) {
+            sum += TEA_DELTA;
+            b0 += ((b1 << 4) + in[0]) ^ (b1 + sum) ^ ((b1 >>> 5) + in[1]);
+            b1 += ((b0 << 4) + in[2]) ^ (b0 + sum) ^ ((b0 >>> 5) + in[3]);
+        }
+        buffer[0] += b0;
+        buffer[1] += b1;
+    }
+
+    /**
+     *The three rounds of MD4, over 8 words instead of 16 (F is selection, G is majority, H is parity).
+     */
+    private static void halfMd4Transform(int[] buffer, int[] in) {
+        int a = buffer[0], b = buffer[1], c = buffer[2], d = buffer[3];
+
+        a = Integer.rotateLeft(a + f(b, c, d) + in[0], 3);
+        d = Integer.rotateLeft(d + f(a, b, c) + in[1], 7);
+        c = Integer.rotateLeft(c + f(d, a, b) + in[2], 11);
+        b = Integer.rotateLeft(b + f(c, d, a) + in[3], 19);
+        a = Integer.rotateLeft(a + f(b, c, d) + in[4], 3);
+        d = Integer.rotateLeft(d + f(a, b, c) + in[5], 7);
+        c = Integer.rotateLeft(c + f(d, a, b) + in[6], 11);
+        b = Integer.rotateLeft(b + f(c, d, a) + in[7], 19);
+
+        a = Integer.rotateLeft(a + g(b, c, d) + in[1] + MD4_K2, 3);
+        d = Integer.rotateLeft(d + g(a, b, c) + in[3] + MD4_K2, 5);
+        c = Integer.rotateLeft(c + g(d, a, b) + in[5] + MD4_K2, 9);
+        b = Integer.rotateLeft(b + g(c, d, a) + in[7] + MD4_K2, 13);
+        a = Integer.rotateLeft(a + g(b, c, d) + in[0] + MD4_K2, 3);
+        d = Integer.rotateLeft(d + g(a, b, c) + in[2] + MD4_K2, 5);
+        c = Integer.rotateLeft(c + g(d, a, b) + in[4] + MD4_K2, 9);
+        b = Integer.rotateLeft(b + g(c, d, a) + in[6] + MD4_K2, 13);
+
+        a = Integer.rotateLeft(a + (b ^ c ^ d) + in[3] + MD4_K3, 3);
+        d = Integer.rotateLeft(d + (a ^ b ^ c) + in[7] + MD4_K3, 9);
+        c = Integer.rotateLeft(c + (d ^ a ^ b) + in[2] + MD4_K3, 11);
+        b = Integer.rotateLeft(b + (c ^ d ^ a) + in[6] + MD4_K3, 15);
+        a = Integer.rotateLeft(a + (b ^ c ^ d) + in[1] + MD4_K3, 3);
+        d = Integer.rotateLeft(d + (a ^ b ^ c) + in[5] + MD4_K3, 9);
+        c = Integer.rotateLeft(c + (d ^ a ^ b) + in[0] + MD4_K3, 11);
+        b = Integer.rotateLeft(b + (c ^ d ^ a) + in[4] + MD4_K3, 15);
+
+        buffer[0] += a;
+        buffer[1] += b;
+        buffer[2] += c;
+        buffer[3] += d;
+    }
+
+    private static int f(int x, int y, int z) {
+        return z ^ (x & (y ^ z));
+    }
+
+    private static int g(int x, int y, int z) {
+        return (x & y) + ((x ^ y) & z);
+    }
+}
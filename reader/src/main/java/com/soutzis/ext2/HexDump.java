@@ -0,0 +1,144 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ *A channel that prints the bytes that are written to it as a hex dump, in the same format as "xxd": each line has
+ *the offset of its first byte, up to 16 bytes as hex digits (in groups of 2 bytes) and the same bytes as text, with
+ *a '.' in place of anything that is not printable ASCII.
+ *The lines are formatted with lookup tables into a single reusable buffer, which is written to the output channel
+ *whenever it fills up, so no memory is allocated per byte or per line, however much is dumped.
+ *@author Petros Soutzis
+ */
+
+class HexDump implements WritableByteChannel {
+    static final int BYTES_PER_LINE = 16;
+    //The width of the hex column: 2 digits for every byte, plus a space after every group of 2 bytes
+    private static final int HEX_WIDTH = BYTES_PER_LINE * 2 + BYTES_PER_LINE / 2;
+    //The longest line: a 64-bit offset, ": ", the hex column, a space, the text column and a newline
+    private static final int MAX_LINE_LENGTH = 16 + 2 + HEX_WIDTH + 1 + BYTES_PER_LINE + 1;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private static final byte[] DIGITS = "0123456789abcdef".getBytes();
+    //The 2 hex digits of every byte value, and the character that every byte value is shown as in the text column
+    private static final byte[] HEX = new byte[256 * 2];
+    private static final byte[] TEXT = new byte[256];
+
+    static {
+        for(int i = 0; i < 256; i++) {
+            HEX[i * 2] = DIGITS[i >>> 4];
+            HEX[i * 2 + 1] = DIGITS[i & 0xF];
+            TEXT[i] = (byte) (i >= ' ' && i <= '~' ? i : '.');
+        }
+    }
+
+    private final WritableByteChannel out;
+    private final byte[] output = new byte[OUTPUT_BUFFER_SIZE];
+    private final ByteBuffer outputBuffer = ByteBuffer.wrap(output);
+    private int outputLength; //the number of bytes of the output buffer that have been formatted
+    private final byte[] line = new byte[BYTES_PER_LINE];
+    private int lineLength;  //the number of bytes of the current line that have been written to this channel
+    private long offset;  //the offset of the first byte of the current line
+    private boolean open = true;
+
+    /**
+     *Constructor of the HexDump class
+     *@param offset is the offset that the first byte written to this channel will be shown at
+     *@param out is the channel that the formatted lines will be written to (it is not closed by close())
+     */
+    HexDump(long offset, WritableByteChannel out) {
+        this.offset = offset;
+        this.out = out;
+    }
+
+    /**
+     *Formats the bytes of the buffer, one line at a time. The last line is only printed when it is full, or when
+     *this channel is closed.
+     *@param src the bytes to dump
+     *@throws IOException if the output channel can not be written to
+     *@return the number of bytes that were read from src (all of its remaining bytes)
+     */
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if(!open)
+            throw new ClosedChannelException();
+        int count = src.remaining();
+        while(src.hasRemaining()) {
+            int length = Math.min(BYTES_PER_LINE - lineLength, src.remaining());
+            src.get(line, lineLength, length);
+            lineLength += length;
+            if(lineLength == BYTES_PER_LINE)
+                formatLine();
+        }
+
+        return count;
+    }
+
+    /**
+     *Formats the current line into the output buffer, which is written out first if the line would not fit.
+     */
+    private void formatLine() throws IOException {
+        if(outputLength + MAX_LINE_LENGTH > output.length)
+            flush();
+        int i = outputLength;
+
+        //The offset has at least 8 digits, like xxd's "%08lx"
+        int digits = Math.max(8, (Long.SIZE - Long.numberOfLeadingZeros(offset) + 3) / 4);
+        for(int shift = (digits - 1) * 4; shift >= 0; shift -= 4)
+            output[i++] = DIGITS[(int) (offset >>> shift) & 0xF];
+        output[i++] = ':';
+        output[i++] = ' ';
+
+        int hexEnd = i + HEX_WIDTH;
+        for(int k = 0; k < lineLength; k++) {
+            int value = line[k] & 0xFF;
+            output[i++] = HEX[value * 2];
+            output[i++] = HEX[value * 2 + 1];
+            if((k & 1) == 1)
+                output[i++] = ' ';
+        }
+        //A short line is padded, so that its text column is aligned with the others
+        while(i <= hexEnd)
+            output[i++] = ' ';
+        for(int k = 0; k < lineLength; k++)
+            output[i++] = TEXT[line[k] & 0xFF];
+        output[i++] = '\n';
+
+        outputLength = i;
+        offset += lineLength;
+        lineLength = 0;
+    }
+
+    /**
+     *Writes the lines that have been formatted so far to the output channel.
+     */
+    private void flush() throws IOException {
+        outputBuffer.clear().limit(outputLength);
+        while(outputBuffer.hasRemaining())
+            out.write(outputBuffer);
+        outputLength = 0;
+    }
+
+    @Override
+    public boolean isOpen() {
+
+        return open;
+    }
+
+    /**
+     *Prints the last line (even if it is not full) and writes everything that is left to the output channel.
+     *@throws IOException if the output channel can not be written to
+     */
+    @Override
+    public void close() throws IOException {
+        if(!open)
+            return;
+        open = false;
+        if(lineLength > 0)
+            formatLine();
+        flush();
+    }
+}
@@ -0,0 +1,930 @@
+package com.soutzis.ext2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *This class writes synthetic ext2 images, without any external tool such as mke2fs.
+ *The images are revision 1 filesystems with the sparse_super, large_file and filetype features, that pass
+ *"e2fsck -fn". Files and directories are added with mkdir(), createFile() and createSparseFile(), and the rest of the
+ *metadata (the last block of every directory, the bitmaps, the group descriptors and the superblocks) is written by
+ *close().
+ *Blocks are allocated next-fit. With setFragmentation(n), every file leaves a gap of n free blocks after each run of n
+ *blocks, which the files that come after it fill in, so that the blocks of consecutive files interleave.
+ *With setHashIndexed(true), the filesystem has the dir_index feature, and every directory that takes up more than
+ *one block is written with a hash tree index of one level, like the kernel builds it.
+ *The contents of the regular files are given by contentAt(), so that whatever is read back from an image can be
+ *checked. main() builds an image of a given shape from the command line.
+ *@author Petros Soutzis
+ */
+public class ImageGenerator implements Closeable {
+    //The first inode that is not reserved, which is lost+found
+    private static final int FIRST_INODE = 11;
+    //Feature flags
+    private static final int INCOMPAT_FILETYPE = 0x0002;
+    private static final int RO_COMPAT_SPARSE_SUPER = 0x0001;
+    private static final int RO_COMPAT_LARGE_FILE = 0x0002;
+    //The file types that are stored in the directory entries
+    private static final int FT_REG_FILE = 1;
+    private static final int FT_DIR = 2;
+    //The largest number of contiguous file blocks that are written with a single write
+    private static final int MAX_RUN_BLOCKS = 256;
+    //The number of inode table blocks that are gathered in memory before they are written
+    private static final int INODE_WINDOW_BLOCKS = 256;
+    //The root of a hash tree: its info follows the "." and ".." entries, and its index entries follow the info
+    private static final int DX_ROOT_INFO_OFFSET = 24, DX_ROOT_INFO_LENGTH = 8, DX_ENTRY_SIZE = 8;
+    //The number of entries in each directory under /files, when main() creates many files
+    private static final int FILES_PER_DIRECTORY = 1000;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int blockSize, inodeSize, blocksPerGroup, inodesPerGroup, groupCount, firstDataBlock;
+    private final int gdtBlocks, inodeTableBlocks;
+    private final long blockCount;
+    private final long[] blockBitmap; //one bit per block of the volume, starting from block 0
+    private final int[] usedDirectories; //the number of directories in each block group
+    private final Map<Integer, Directory> directories = new TreeMap<>();
+    private final ByteBuffer inodeWindow; //a slice of an inode table, so that inodes are not written one by one
+    private long inodeWindowStart = -1;
+    private final ByteBuffer run; //the contiguous file blocks that are waiting to be written
+    private final int timestamp = (int)(System.currentTimeMillis() / 1000);
+    private String volumeName = "";
+    private int nextInode = FIRST_INODE;
+    private long lowestFree; //there is no free block below this one
+    private int fragmentation;
+    private boolean hashIndexed;
+    private int[] hashSeed = new int[4];
+    private boolean closed;
+
+    /**
+     *Creates an empty filesystem, that only has a root directory and a lost+found directory.
+     *@param path is the image file to write, which is truncated if it already exists
+     *@param size is the size of the image in bytes
+     *@param blockSize is the size of each block: 1024, 2048 or 4096 bytes
+     *@param blocksPerGroup is the number of blocks in each block group, or 0 for the most that fit (8 * blockSize)
+     *@param inodeCount is the least number of inodes that the filesystem will have
+     *@param inodeSize is the size of each inode: 128 or 256 bytes
+     *@throws IOException if the image could not be created
+     *@throws IllegalArgumentException if the parameters do not describe a valid filesystem
+     */
+    public ImageGenerator(String path, long size, int blockSize, int blocksPerGroup, long inodeCount, int inodeSize)
+            throws IOException {
+        if(blockSize != 1024 && blockSize != 2048 && blockSize != 4096)
+            throw new IllegalArgumentException("The block size must be 1024, 2048 or 4096 bytes");
+        if(inodeSize != 128 && inodeSize != 256)
+            throw new IllegalArgumentException("The inode size must be 128 or 256 bytes");
+        if(blocksPerGroup == 0)
+            blocksPerGroup = blockSize * 8;
+        if(blocksPerGroup % 8 != 0 || blocksPerGroup < 256 || blocksPerGroup > blockSize * 8)
+            throw new IllegalArgumentException("The blocks per group must be a multiple of 8, from 256 to " +
+                    blockSize * 8);
+
+        this.blockSize = blockSize;
+        this.inodeSize = inodeSize;
+        this.blocksPerGroup = blocksPerGroup;
+        this.firstDataBlock = blockSize == 1024 ? 1 : 0;
+
+        long blocks = Math.min(size / blockSize, 0xFFFFFFFFL);
+        int groups = (int)((blocks - firstDataBlock + blocksPerGroup - 1) / blocksPerGroup);
+        if(groups < 1)
+            throw new IllegalArgumentException("The image is too small");
+        int inodesPerBlock = blockSize / inodeSize;
+        long perGroup = (Math.max(inodeCount, 32) + groups - 1) / groups;
+        perGroup = (perGroup + inodesPerBlock - 1) / inodesPerBlock * inodesPerBlock;
+        if(perGroup > blockSize * 8)
+            throw new IllegalArgumentException("Too many inodes: at most " + (long) blockSize * 8 * groups +
+                    " fit in " + groups + " block groups");
+        this.inodesPerGroup = (int) perGroup;
+        this.inodeTableBlocks = inodesPerGroup / inodesPerBlock;
+        this.gdtBlocks = (groups * Constants.GDESCRIPTOR_SIZE + blockSize - 1) / blockSize;
+
+        //a last group that is too small for its own metadata and some data is dropped, as mke2fs does
+        long lastGroupBlocks = blocks - firstDataBlock - (long)(groups - 1) * blocksPerGroup;
+        if(groups > 1 && lastGroupBlocks < overhead(groups - 1) + 50) {
+            groups--;
+            blocks = firstDataBlock + (long) groups * blocksPerGroup;
+        }
+        if(blocks - firstDataBlock < overhead(0) + 50)
+            throw new IllegalArgumentException("The image is too small");
+        this.groupCount = groups;
+        this.blockCount = blocks;
+        this.blockBitmap = new long[(int)((blocks + 63) / 64)];
+        this.usedDirectories = new int[groups];
+        this.inodeWindow = ByteBuffer.allocate(Math.min(INODE_WINDOW_BLOCKS, inodeTableBlocks) * blockSize);
+        this.run = ByteBuffer.allocate(MAX_RUN_BLOCKS * blockSize);
+
+        file = new RandomAccessFile(path, "rw");
+        file.setLength(0);
+        file.setLength(blocks * blockSize);
+        channel = file.getChannel();
+
+        //the boot block (when blocks are 1 KiB) and the metadata at the start of every group are never free
+        for(long block = 0; block < firstDataBlock; block++)
+            markBlock(block);
+        for(int group = 0; group < groups; group++) {
+            long start = groupStart(group);
+            for(long block = start; block < start + overhead(group); block++)
+                markBlock(block);
+        }
+        lowestFree = findFree(0);
+        createRoot();
+    }
+
+    /**
+     *Creates the root directory and lost+found, whose entries are only kept in memory until close()
+     */
+    private void createRoot() throws IOException {
+        //the root directory is its own parent
+        directories.put(Constants.ROOT_INODE_OFFSET, new Directory(Constants.ROOT_INODE_OFFSET,
+                Constants.ROOT_INODE_OFFSET, 0755));
+        usedDirectories[(Constants.ROOT_INODE_OFFSET - 1) / inodesPerGroup]++;
+        mkdir(Constants.ROOT_INODE_OFFSET, "lost+found", 0700);
+    }
+
+    /**
+     *@param volumeName is the volume name (at most 16 bytes) that is written to the superblock
+     */
+    public void setVolumeName(String volumeName) {
+        this.volumeName = volumeName;
+    }
+
+    /**
+     *@param runLength is the number of contiguous blocks after which a file leaves a gap of as many free blocks, or 0
+     *to allocate the blocks of every file contiguously
+     */
+    public void setFragmentation(int runLength) {
+        this.fragmentation = runLength;
+    }
+
+    /**
+     *Gives the filesystem the dir_index feature, so that every directory that takes up more than one block is written
+     *with a hash tree index: a root block and one level of leaves, which hold the entries sorted by their half MD4
+     *hash. The entries of such a directory are kept in memory until close(). It must be called before any file or
+     *directory is created.
+     *@param hashIndexed is true to index the directories, or false to write them as plain lists of entries
+     *@throws IOException never, as the root directory is only in memory at this point
+     *@throws IllegalStateException if a file or directory was created already
+     */
+    public void setHashIndexed(boolean hashIndexed) throws IOException {
+        if(nextInode != FIRST_INODE + 1)
+            throw new IllegalStateException("The directories can only be indexed before anything is created");
+        this.hashIndexed = hashIndexed;
+        //the seed only has to be the same for every directory, so it is derived from the geometry like the UUID
+        hashSeed = hashIndexed ? new int[]{(int) blockCount, inodesPerGroup, groupCount, 0x45585432} : new int[4];
+        //the root and lost+found are created again, to keep their entries in the same way as all the others
+        directories.clear();
+        Arrays.fill(usedDirectories, 0);
+        nextInode = FIRST_INODE;
+        createRoot();
+    }
+
+    /**
+     *@return the seed of the directory hash, which is all zero unless the directories are indexed
+     */
+    public int[] getHashSeed() {
+        return hashSeed.clone();
+    }
+
+    /**
+     *@return the number of block groups of the filesystem
+     */
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     *@return the number of inodes of the filesystem
+     */
+    public long getInodeCount() {
+        return (long) inodesPerGroup * groupCount;
+    }
+
+    /**
+     *Creates a directory.
+     *@param parent is the inode number of the parent directory
+     *@param name is the name of the new directory
+     *@throws IOException if a block of the parent directory could not be written
+     *@return the inode number of the new directory
+     */
+    public int mkdir(int parent, String name) throws IOException {
+        return mkdir(parent, name, 0755);
+    }
+
+    private int mkdir(int parent, String name, int permissions) throws IOException {
+        Directory parentDirectory = directory(parent);
+        int inodeNumber = allocateInode();
+        parentDirectory.add(inodeNumber, name, FT_DIR);
+        parentDirectory.links++;
+        directories.put(inodeNumber, new Directory(inodeNumber, parent, permissions));
+        usedDirectories[(inodeNumber - 1) / inodesPerGroup]++;
+        return inodeNumber;
+    }
+
+    /**
+     *Creates a regular file, whose blocks are all allocated and hold the bytes that contentAt() gives.
+     *@param parent is the inode number of the parent directory
+     *@param name is the name of the new file
+     *@param size is the size of the file in bytes
+     *@throws IOException if the file could not be written
+     *@return the inode number of the new file
+     */
+    public int createFile(int parent, String name, long size) throws IOException {
+        return createFile(parent, name, size, 1);
+    }
+
+    /**
+     *Creates a regular file in which only every eighth block is allocated, and holds the bytes that contentAt() gives.
+     *All the other blocks are holes, which read as zeros.
+     *@param parent is the inode number of the parent directory
+     *@param name is the name of the new file
+     *@param size is the size of the file in bytes
+     *@throws IOException if the file could not be written
+     *@return the inode number of the new file
+     */
+    public int createSparseFile(int parent, String name, long size) throws IOException {
+        return createFile(parent, name, size, 8);
+    }
+
+    /**
+     *The contents of the regular files: a pattern that depends on the inode number and the offset of each byte, so
+     *that bytes read from the wrong block or file are noticed.
+     *@param inodeNumber is the inode number of the file
+     *@param offset is the offset of the byte in the file
+     *@return the byte at that offset of the file
+     */
+    public static byte contentAt(int inodeNumber, long offset) {
+        return (byte)((offset >>> 10) * 31 + offset + inodeNumber);
+    }
+
+    private int createFile(int parent, String name, long size, int dataEvery) throws IOException {
+        Directory parentDirectory = directory(parent);
+        int inodeNumber = allocateInode();
+        parentDirectory.add(inodeNumber, name, FT_REG_FILE);
+
+        PointerTree tree = new PointerTree();
+        long logicalBlocks = (size + blockSize - 1) / blockSize;
+        long runStart = -1;
+        for(long logical = 0; logical < logicalBlocks; logical++) {
+            if(logical % dataEvery != 0) {
+                tree.skip();
+                continue;
+            }
+            long physical = tree.next();
+            //the run is written once it is full, or once a block does not follow on from it
+            if(runStart >= 0 && (!run.hasRemaining() || physical != runStart + run.position() / blockSize)) {
+                writeRun(runStart);
+                runStart = -1;
+            }
+            if(runStart < 0)
+                runStart = physical;
+            long offset = logical * blockSize;
+            for(int i = 0; i < blockSize; i++)
+                run.put(offset + i < size ? contentAt(inodeNumber, offset + i) : 0);
+        }
+        if(runStart >= 0)
+            writeRun(runStart);
+
+        tree.finish();
+        writeInode(inodeNumber, Constants.IFREG | 0644, size, 1, tree);
+        return inodeNumber;
+    }
+
+    /**
+     *Writes all the metadata that is still in memory: the last block and the inode of every directory, the bitmaps,
+     *and the superblock and group descriptors along with their backups. The image is then closed.
+     *@throws IOException if the metadata could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed)
+            return;
+        closed = true;
+
+        //the directories are finished in inode order, so that their inodes go through the window in order too
+        for(Directory directory : directories.values())
+            directory.finish();
+        flushInodeWindow();
+
+        int[] freeBlocks = new int[groupCount];
+        int[] freeInodes = new int[groupCount];
+        long totalFreeBlocks = 0, totalFreeInodes = 0;
+        for(int group = 0; group < groupCount; group++) {
+            freeBlocks[group] = writeBlockBitmap(group);
+            freeInodes[group] = writeInodeBitmap(group);
+            totalFreeBlocks += freeBlocks[group];
+            totalFreeInodes += freeInodes[group];
+        }
+
+        ByteBuffer gdt = ByteBuffer.allocate(gdtBlocks * blockSize).order(ByteOrder.LITTLE_ENDIAN);
+        for(int group = 0; group < groupCount; group++) {
+            int offset = group * Constants.GDESCRIPTOR_SIZE;
+            long bitmaps = bitmapBlock(group);
+            gdt.putInt(offset, (int) bitmaps); //block bitmap
+            gdt.putInt(offset + 4, (int)(bitmaps + 1)); //inode bitmap
+            gdt.putInt(offset + 8, (int)(bitmaps + 2)); //inode table
+            gdt.putShort(offset + 12, (short) freeBlocks[group]);
+            gdt.putShort(offset + 14, (short) freeInodes[group]);
+            gdt.putShort(offset + 16, (short) usedDirectories[group]);
+        }
+
+        for(int group = 0; group < groupCount; group++) {
+            if(!hasSuperblock(group))
+                continue;
+            long start = groupStart(group);
+            //the primary superblock is at byte 1024 whatever the block size, and its descriptors in the next block
+            long superblockOffset = group == 0 ? Constants.SUPERBLOCK_OFFSET : start * blockSize;
+            write(superblock(group, totalFreeBlocks, totalFreeInodes), superblockOffset);
+            write(gdt.duplicate(), (start + 1) * blockSize);
+        }
+
+        channel.force(false);
+        file.close();
+    }
+
+    private ByteBuffer superblock(int group, long freeBlocks, long freeInodes) {
+        int logBlockSize = Integer.numberOfTrailingZeros(blockSize) - 10;
+        ByteBuffer sb = ByteBuffer.allocate(Constants.SUPERBLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        sb.putInt(Constants.S_INODE_COUNT_OFFSET, (int) getInodeCount());
+        sb.putInt(Constants.S_BLOCK_COUNT_OFFSET, (int) blockCount);
+        sb.putInt(12, (int) freeBlocks);
+        sb.putInt(16, (int) freeInodes);
+        sb.putInt(Constants.S_FIRST_DATA_BLOCK_OFFSET, firstDataBlock);
+        sb.putInt(Constants.S_LOG_BLOCK_SIZE_OFFSET, logBlockSize);
+        sb.putInt(28, logBlockSize); //fragments are as large as blocks
+        sb.putInt(Constants.S_BLOCKS_PER_GROUP_OFFSET, blocksPerGroup);
+        sb.putInt(36, blocksPerGroup); //fragments per group
+        sb.putInt(Constants.S_INODES_PER_GROUP_OFFSET, inodesPerGroup);
+        sb.putInt(48, timestamp); //last write time
+        sb.putShort(54, (short) -1); //no maximum mount count
+        sb.putShort(Constants.S_MAGIC_OFFSET, Constants.MAGIC_NUM_VALUE);
+        sb.putShort(58, (short) 1); //cleanly unmounted
+        sb.putShort(60, (short) 1); //continue on errors
+        sb.putInt(64, timestamp); //last check
+        sb.putInt(76, 1); //dynamic revision, for the fields below
+        sb.putInt(84, FIRST_INODE);
+        sb.putShort(Constants.S_INODE_SIZE_OFFSET, (short) inodeSize);
+        sb.putShort(90, (short) group); //the group that this copy of the superblock is in
+        if(hashIndexed) {
+            sb.putInt(Constants.S_FEATURE_COMPAT_OFFSET, Constants.FEATURE_COMPAT_DIR_INDEX);
+            for(int i = 0; i < hashSeed.length; i++)
+                sb.putInt(Constants.S_HASH_SEED_OFFSET + i * Constants.BYTE_LENGTH, hashSeed[i]);
+            sb.put(252, (byte) HTree.HALF_MD4); //the default hash version
+            sb.putInt(Constants.S_FLAGS_OFFSET, Constants.FLAGS_SIGNED_HASH);
+        }
+        sb.putInt(96, INCOMPAT_FILETYPE);
+        sb.putInt(100, RO_COMPAT_SPARSE_SUPER | RO_COMPAT_LARGE_FILE);
+        //the UUID only has to stay the same across the backups, so it is derived from the geometry
+        sb.putLong(104, 0x4558543247454E00L ^ blockCount);
+        sb.putLong(112, (long) inodesPerGroup << 32 | groupCount);
+        byte[] name = volumeName.getBytes(StandardCharsets.UTF_8);
+        sb.position(Constants.S_FILESYSTEM_NAME_OFFSET);
+        sb.put(name, 0, Math.min(name.length, Constants.S_FILESYSTEM_NAME_LENGTH));
+        sb.clear();
+        return sb;
+    }
+
+    /**
+     *@return the number of free blocks in the group
+     */
+    private int writeBlockBitmap(int group) throws IOException {
+        ByteBuffer bitmap = ByteBuffer.allocate(blockSize);
+        long start = groupStart(group);
+        long blocks = Math.min(blocksPerGroup, blockCount - start);
+        int free = 0;
+        for(int i = 0; i < blockSize * 8; i++) {
+            //the bits past the end of the group are set, as there are no such blocks to allocate
+            if(i >= blocks || isBlockUsed(start + i))
+                bitmap.put(i >>> 3, (byte)(bitmap.get(i >>> 3) | 1 << (i & 7)));
+            else
+                free++;
+        }
+        write(bitmap, bitmapBlock(group) * blockSize);
+        return free;
+    }
+
+    /**
+     *@return the number of free inodes in the group
+     */
+    private int writeInodeBitmap(int group) throws IOException {
+        ByteBuffer bitmap = ByteBuffer.allocate(blockSize);
+        int free = 0;
+        for(int i = 0; i < blockSize * 8; i++) {
+            long inodeNumber = (long) group * inodesPerGroup + i + 1;
+            //inodes are allocated in order, so all the ones below nextInode are in use
+            if(i >= inodesPerGroup || inodeNumber < nextInode)
+                bitmap.put(i >>> 3, (byte)(bitmap.get(i >>> 3) | 1 << (i & 7)));
+            else
+                free++;
+        }
+        write(bitmap, (bitmapBlock(group) + 1) * blockSize);
+        return free;
+    }
+
+    private void writeInode(int inodeNumber, int mode, long size, int links, PointerTree tree) throws IOException {
+        writeInode(inodeNumber, mode, size, links, 0, tree);
+    }
+
+    private void writeInode(int inodeNumber, int mode, long size, int links, int flags, PointerTree tree)
+            throws IOException {
+        ByteBuffer inode = ByteBuffer.allocate(inodeSize).order(ByteOrder.LITTLE_ENDIAN);
+        inode.putShort(Constants.I_MODE_OFFSET, (short) mode);
+        inode.putInt(Constants.I_SIZE_LOWER_OFFSET, (int) size);
+        inode.putInt(Constants.I_ACCESS_TIME_OFFSET, timestamp);
+        inode.putInt(Constants.I_CREATION_TIME_OFFSET, timestamp);
+        inode.putInt(Constants.I_MODIFICATION_TIME_OFFSET, timestamp);
+        inode.putShort(Constants.I_LINKS_COUNT_OFFSET, (short) links);
+        inode.putInt(28, (int)(tree.allocated * (blockSize / 512))); //i_blocks counts 512-byte sectors
+        inode.putInt(Constants.I_FLAGS_OFFSET, flags);
+        for(int i = 0; i < Constants.INODE_POINTERS_COUNT; i++)
+            inode.putInt(Constants.I_BLOCK_POINTERS_OFFSET + i * Constants.BYTE_LENGTH, (int) tree.pointers[i]);
+        inode.putInt(Constants.I_SIZE_UPPER_OFFSET, (int)(size >>> 32));
+
+        int group = (inodeNumber - 1) / inodesPerGroup;
+        int index = (inodeNumber - 1) % inodesPerGroup;
+        long tableStart = (bitmapBlock(group) + 2) * blockSize;
+        long position = tableStart + (long) index * inodeSize;
+        if(inodeWindowStart < 0 || position < inodeWindowStart ||
+                position >= inodeWindowStart + inodeWindow.limit()) {
+            flushInodeWindow();
+            //the window starts at the block of the inode, and never goes past the end of the group's inode table
+            long start = position - position % blockSize;
+            inodeWindow.clear();
+            inodeWindow.limit((int) Math.min(inodeWindow.capacity(), tableStart + inodeTableBlocks * (long) blockSize
+                    - start));
+            //earlier inodes in the window may already be on the image, so it is read before it is written over
+            for(long read = start; inodeWindow.hasRemaining(); ) {
+                int count = channel.read(inodeWindow, read);
+                if(count < 0)
+                    break;
+                read += count;
+            }
+            inodeWindowStart = start;
+        }
+        inodeWindow.position((int)(position - inodeWindowStart));
+        inodeWindow.put(inode.array());
+    }
+
+    private void flushInodeWindow() throws IOException {
+        if(inodeWindowStart < 0)
+            return;
+        ByteBuffer window = inodeWindow.duplicate();
+        window.position(0);
+        write(window, inodeWindowStart);
+        inodeWindowStart = -1;
+    }
+
+    private Directory directory(int inodeNumber) {
+        Directory directory = directories.get(inodeNumber);
+        if(directory == null)
+            throw new IllegalArgumentException("Inode " + inodeNumber + " is not a directory");
+        return directory;
+    }
+
+    private int allocateInode() {
+        if(nextInode > getInodeCount())
+            throw new IllegalStateException("There are no free inodes left");
+        return nextInode++;
+    }
+
+    /**
+     *@param goal is the block to start looking from
+     *@return the first free block from the goal onwards, or from the start of the volume if there is none after it
+     */
+    private long allocateBlock(long goal) {
+        long block = findFree(Math.max(goal, lowestFree));
+        if(block < 0)
+            block = findFree(lowestFree);
+        if(block < 0)
+            throw new IllegalStateException("There are no free blocks left");
+        markBlock(block);
+        if(block == lowestFree) {
+            long next = findFree(block + 1);
+            lowestFree = next < 0 ? blockCount : next;
+        }
+        return block;
+    }
+
+    /**
+     *@return the first free block from the given one onwards, or -1 if there is none
+     */
+    private long findFree(long from) {
+        while(from < blockCount) {
+            int word = (int)(from >>> 6);
+            long free = ~blockBitmap[word] & -1L << (from & 63);
+            if(free != 0) {
+                long block = ((long) word << 6) + Long.numberOfTrailingZeros(free);
+                return block < blockCount ? block : -1;
+            }
+            from = (long)(word + 1) << 6;
+        }
+        return -1;
+    }
+
+    private void markBlock(long block) {
+        blockBitmap[(int)(block >>> 6)] |= 1L << (block & 63);
+    }
+
+    private boolean isBlockUsed(long block) {
+        return (blockBitmap[(int)(block >>> 6)] & 1L << (block & 63)) != 0;
+    }
+
+    private long groupStart(int group) {
+        return firstDataBlock + (long) group * blocksPerGroup;
+    }
+
+    /**
+     *@return the block bitmap of the group, which the inode bitmap and then the inode table follow
+     */
+    private long bitmapBlock(int group) {
+        return groupStart(group) + (hasSuperblock(group) ? 1 + gdtBlocks : 0);
+    }
+
+    /**
+     *@return the number of blocks at the start of the group that hold metadata
+     */
+    private int overhead(int group) {
+        return (hasSuperblock(group) ? 1 + gdtBlocks : 0) + 2 + inodeTableBlocks;
+    }
+
+    /**
+     *With sparse_super, only groups 0 and 1 and the powers of 3, 5 and 7 keep a copy of the superblock
+     */
+    private static boolean hasSuperblock(int group) {
+        return group <= 1 || isPowerOf(group, 3) || isPowerOf(group, 5) || isPowerOf(group, 7);
+    }
+
+    private static boolean isPowerOf(int value, int base) {
+        while(value % base == 0)
+            value /= base;
+        return value == 1;
+    }
+
+    private void writeRun(long startBlock) throws IOException {
+        run.flip();
+        write(run, startBlock * blockSize);
+        run.clear();
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     *The 15 block pointers of a file or directory. The data blocks are added in logical order, and every pointer
+     *block is allocated just before the first block that it leads to, which is how ext2 lays them out.
+     *Only the pointer blocks on the path to the last data block are kept in memory: all the ones before them are full.
+     */
+    private class PointerTree {
+        private final long[] pointers = new long[Constants.INODE_POINTERS_COUNT];
+        private final int perBlock = blockSize / Constants.BYTE_LENGTH;
+        //the pointer blocks on the current path, where level 0 points to data blocks
+        private final ByteBuffer[] levels = new ByteBuffer[3];
+        private final long[] levelBlocks = new long[3];
+        //which pointer of the inode each level is under, and which of its blocks at that level it is
+        private final int[] levelDepths = new int[3];
+        private final long[] levelKeys = new long[3];
+        private long logical, allocated, lastBlock = -1;
+        private int runLength;
+
+        /**
+         *@return the physical block that was allocated for the next logical block
+         */
+        long next() throws IOException {
+            long index = logical++;
+            if(index >= Constants.DIRECT_POINTERS_COUNT) {
+                index -= Constants.DIRECT_POINTERS_COUNT;
+                int depth = 1; //1 under the indirect pointer, 2 under the double and 3 under the triple indirect one
+                long span = perBlock;
+                while(index >= span) {
+                    index -= span;
+                    span *= perBlock;
+                    depth++;
+                }
+                if(depth > 3)
+                    throw new IllegalArgumentException("The file is too large for " + blockSize + "-byte blocks");
+                return placeIndirect(depth, index);
+            }
+            long block = allocate();
+            pointers[(int) index] = block;
+            return block;
+        }
+
+        /**
+         *Leaves the next logical block as a hole
+         */
+        void skip() {
+            logical++;
+        }
+
+        private long placeIndirect(int depth, long index) throws IOException {
+            //from the top of the tree down, any pointer block that this index is not under is replaced by a new one
+            for(int level = depth - 1; level >= 0; level--) {
+                long key = index / power(perBlock, level + 1);
+                if(levels[level] != null && levelDepths[level] == depth && levelKeys[level] == key)
+                    continue;
+                if(levels[level] != null)
+                    writeLevel(level);
+                long block = allocate();
+                levels[level] = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+                levelBlocks[level] = block;
+                levelDepths[level] = depth;
+                levelKeys[level] = key;
+                if(level == depth - 1)
+                    pointers[Constants.DIRECT_POINTERS_COUNT + depth - 1] = block;
+                else
+                    levels[level + 1].putInt(entry(index, level + 1) * Constants.BYTE_LENGTH, (int) block);
+            }
+            long block = allocate();
+            levels[0].putInt(entry(index, 0) * Constants.BYTE_LENGTH, (int) block);
+            return block;
+        }
+
+        /**
+         *@return the entry of the pointer block at the given level that leads to the index
+         */
+        private int entry(long index, int level) {
+            return (int)(index / power(perBlock, level) % perBlock);
+        }
+
+        private long allocate() {
+            long goal = lastBlock < 0 ? lowestFree : lastBlock + 1;
+            if(fragmentation > 0 && runLength == fragmentation) {
+                goal += fragmentation;
+                runLength = 0;
+            }
+            long block = allocateBlock(goal);
+            runLength = block == lastBlock + 1 ? runLength + 1 : 1;
+            lastBlock = block;
+            allocated++;
+            return block;
+        }
+
+        private void writeLevel(int level) throws IOException {
+            ByteBuffer block = levels[level].duplicate();
+            block.clear();
+            write(block, levelBlocks[level] * blockSize);
+        }
+
+        /**
+         *Writes the pointer blocks that are still in memory
+         */
+        void finish() throws IOException {
+            for(int level = 0; level < levels.length; level++) {
+                if(levels[level] != null)
+                    writeLevel(level);
+            }
+        }
+    }
+
+    private static long power(long base, int exponent) {
+        long result = 1;
+        for(int i = 0; i < exponent; i++)
+            result *= base;
+        return result;
+    }
+
+    /**
+     *A directory that entries are being added to. Its blocks are written as soon as they fill up, so that only the
+     *last block of every directory is kept in memory, and only as large as its entries need. If the directories are
+     *indexed, all its entries are kept instead, as the ones of a directory that takes up more than one block are
+     *sorted by their hashes when it is finished.
+     */
+    private class Directory {
+        private final int inodeNumber, permissions;
+        private final PointerTree tree = new PointerTree();
+        private final List<Entry> entries = hashIndexed ? new ArrayList<>() : null;
+        private byte[] block = new byte[64];
+        private int used, lastEntry, blocks, entriesLength;
+        private int links = 2; //the entry in its parent, and its own "." entry
+
+        private Directory(int inodeNumber, int parent, int permissions) throws IOException {
+            this.inodeNumber = inodeNumber;
+            this.permissions = permissions;
+            add(inodeNumber, ".", FT_DIR);
+            add(parent, "..", FT_DIR);
+        }
+
+        private void add(int entryInode, String name, int fileType) throws IOException {
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            if(nameBytes.length == 0 || nameBytes.length > 255 || name.indexOf('/') >= 0)
+                throw new IllegalArgumentException("Invalid file name: " + name);
+            if(entries != null) {
+                Entry entry = new Entry(entryInode, nameBytes, fileType);
+                entries.add(entry);
+                entriesLength += entry.recordLength;
+            }
+            else
+                put(entryInode, nameBytes, fileType, true);
+        }
+
+        /**
+         *Adds an entry to the current block
+         *@param spill is true to write the current block and start a new one if the entry does not fit in it, or
+         *false if a new block was started already
+         */
+        private void put(int entryInode, byte[] nameBytes, int fileType, boolean spill) throws IOException {
+            int recordLength = (8 + nameBytes.length + 3) & ~3;
+            if(spill && used + recordLength > blockSize)
+                flush();
+            if(used + recordLength > block.length)
+                block = Arrays.copyOf(block, Math.min(blockSize, Math.max(block.length * 2, used + recordLength)));
+
+            ByteBuffer entry = ByteBuffer.wrap(block, used, recordLength).order(ByteOrder.LITTLE_ENDIAN);
+            entry.putInt(entryInode).putShort((short) recordLength).put((byte) nameBytes.length).put((byte) fileType)
+                    .put(nameBytes);
+            lastEntry = used;
+            used += recordLength;
+        }
+
+        /**
+         *Writes the current block, after stretching the record length of its last entry to the end of the block
+         */
+        private void flush() throws IOException {
+            ByteBuffer data = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+            data.put(block, 0, used);
+            data.putShort(lastEntry + Constants.BYTE_LENGTH, (short)(blockSize - lastEntry));
+            data.clear();
+            write(data, tree.next() * blockSize);
+            blocks++;
+            used = 0;
+        }
+
+        private void finish() throws IOException {
+            int flags = 0;
+            if(entries != null && entriesLength > blockSize) {
+                writeIndex();
+                flags = Constants.INDEX_FL;
+            }
+            else if(entries != null) {
+                for(Entry entry : entries)
+                    put(entry.inodeNumber, entry.name, entry.fileType, true);
+            }
+            if(used > 0)
+                flush();
+            tree.finish();
+            writeInode(inodeNumber, Constants.IFDIR | permissions, (long) blocks * blockSize, links, flags, tree);
+        }
+
+        /**
+         *Writes the root of the hash tree, as the first block, and then the entries sorted by their hashes as its
+         *leaves. When the entries of one hash go on from one leaf to the next, the hash of the next leaf in the root
+         *has its lowest bit set, as the kernel marks a collision.
+         */
+        private void writeIndex() throws IOException {
+            List<Entry> sorted = new ArrayList<>(entries.subList(2, entries.size()));
+            sorted.sort(Comparator.comparingInt(entry -> entry.hash ^ Integer.MIN_VALUE));
+            int limit = (blockSize - DX_ROOT_INFO_OFFSET - DX_ROOT_INFO_LENGTH) / DX_ENTRY_SIZE;
+
+            ByteBuffer root = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+            //"." and "..", whose record length takes up the rest of the block, so that the index is not seen as entries
+            root.putInt(0, entries.get(0).inodeNumber).putShort(4, (short) 12).put(6, (byte) 1).put(7, (byte) FT_DIR);
+            root.put(8, (byte) '.');
+            root.putInt(12, entries.get(1).inodeNumber).putShort(16, (short)(blockSize - 12)).put(18, (byte) 2)
+                    .put(19, (byte) FT_DIR);
+            root.put(20, (byte) '.').put(21, (byte) '.');
+            //the info: the reserved zero, the hash version, the length of the info and the number of index levels
+            root.put(DX_ROOT_INFO_OFFSET + 4, (byte) HTree.HALF_MD4)
+                    .put(DX_ROOT_INFO_OFFSET + 5, (byte) DX_ROOT_INFO_LENGTH);
+            long rootBlock = tree.next();
+            blocks++;
+
+            int count = 0, offset = DX_ROOT_INFO_OFFSET + DX_ROOT_INFO_LENGTH;
+            for(int i = 0; i < sorted.size(); i++) {
+                Entry entry = sorted.get(i);
+                if(i == 0 || used + entry.recordLength > blockSize) {
+                    if(i > 0)
+                        flush();
+                    if(++count > limit)
+                        throw new IllegalStateException("Directory " + inodeNumber + " has too many entries for " +
+                                "an index of one level");
+                    //the first entry of the root holds the limit and the count in place of a hash
+                    int position = offset + (count - 1) * DX_ENTRY_SIZE;
+                    if(i > 0)
+                        root.putInt(position, entry.hash | (entry.hash == sorted.get(i - 1).hash ? 1 : 0));
+                    root.putInt(position + Constants.BYTE_LENGTH, blocks);
+                }
+                put(entry.inodeNumber, entry.name, entry.fileType, false);
+            }
+            root.putShort(offset, (short) limit).putShort(offset + 2, (short) count);
+            write(root, rootBlock * blockSize);
+        }
+    }
+
+    /**
+     *An entry of an indexed directory, with the hash of its name
+     */
+    private class Entry {
+        private final int inodeNumber, fileType, recordLength, hash;
+        private final byte[] name;
+
+        private Entry(int inodeNumber, byte[] name, int fileType) {
+            this.inodeNumber = inodeNumber;
+            this.name = name;
+            this.fileType = fileType;
+            this.recordLength = (8 + name.length + 3) & ~3;
+            this.hash = HTree.hash(name, HTree.HALF_MD4, hashSeed);
+        }
+    }
+
+    /**
+     *Builds an image from the command line, for example:
+     *"ImageGenerator big.img --size 4G --files 2000000 --wide 100000 --depth 500 --big-file 3G --fragment 8".
+     *@param args are the path of the image, followed by the options that are printed when it is run without any
+     */
+    public static void main(String[] args) {
+        if(args.length == 0 || args.length % 2 == 0) {
+            System.out.println("Usage: ImageGenerator <image> [--size N] [--block-size N] [--blocks-per-group N] " +
+                    "[--inodes N] [--inode-size N] [--depth N] [--wide N] [--files N] [--file-size N] " +
+                    "[--big-file N] [--sparse-file N] [--fragment N] [--name NAME]\n" +
+                    "Sizes can end in K, M, G or T. The image holds /deep/d1/.../dN, /wide/entry-0.., " +
+                    "/files/dK/file-0.. (" + FILES_PER_DIRECTORY + " per directory), /big.bin and /sparse.bin");
+            System.exit(1);
+        }
+        Map<String, String> options = new HashMap<>();
+        for(int i = 1; i < args.length; i += 2)
+            options.put(args[i], args[i + 1]);
+
+        try {
+            long size = parseSize(options.getOrDefault("--size", "64M"));
+            int depth = (int) parseSize(options.getOrDefault("--depth", "0"));
+            int wide = (int) parseSize(options.getOrDefault("--wide", "0"));
+            int files = (int) parseSize(options.getOrDefault("--files", "0"));
+            long fileSize = parseSize(options.getOrDefault("--file-size", "0"));
+            long bigFile = parseSize(options.getOrDefault("--big-file", "0"));
+            long sparseFile = parseSize(options.getOrDefault("--sparse-file", "0"));
+            long inodes = parseSize(options.getOrDefault("--inodes",
+                    String.valueOf(1024L + depth + wide + files + files / FILES_PER_DIRECTORY)));
+
+            long start = System.nanoTime();
+            try(ImageGenerator generator = new ImageGenerator(args[0], size,
+                    (int) parseSize(options.getOrDefault("--block-size", "1024")),
+                    (int) parseSize(options.getOrDefault("--blocks-per-group", "0")), inodes,
+                    (int) parseSize(options.getOrDefault("--inode-size", "128")))) {
+                generator.setVolumeName(options.getOrDefault("--name", ""));
+                generator.setFragmentation((int) parseSize(options.getOrDefault("--fragment", "0")));
+                generator.populate(depth, wide, files, fileSize, bigFile, sparseFile);
+                System.out.println(args[0] + ": " + generator.getGroupCount() + " block groups, " +
+                        (generator.nextInode - 1) + " of " + generator.getInodeCount() + " inodes used");
+            }
+            System.out.println("Written in " + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+        catch(IOException | RuntimeException e) {
+            System.out.println("Could not build the image: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     *Adds the files and directories of the shape that main() builds
+     */
+    private void populate(int depth, int wide, int files, long fileSize, long bigFile, long sparseFile)
+            throws IOException {
+        int root = Constants.ROOT_INODE_OFFSET;
+        if(depth > 0) {
+            int directory = mkdir(root, "deep");
+            for(int i = 1; i <= depth; i++)
+                directory = mkdir(directory, "d" + i);
+        }
+        if(wide > 0) {
+            int directory = mkdir(root, "wide");
+            for(int i = 0; i < wide; i++)
+                createFile(directory, "entry-" + i, 0);
+        }
+        if(files > 0) {
+            int parent = mkdir(root, "files"), directory = 0;
+            for(int i = 0; i < files; i++) {
+                if(i % FILES_PER_DIRECTORY == 0)
+                    directory = mkdir(parent, "d" + i / FILES_PER_DIRECTORY);
+                createFile(directory, "file-" + i, fileSize);
+            }
+        }
+        if(bigFile > 0)
+            createFile(root, "big.bin", bigFile);
+        if(sparseFile > 0)
+            createSparseFile(root, "sparse.bin", sparseFile);
+    }
+
+    /**
+     *@return the number of bytes in a size such as "512", "64K", "3M", "1G" or "2T"
+     */
+    private static long parseSize(String size) {
+        String suffixes = "KMGT";
+        int shift = suffixes.indexOf(Character.toUpperCase(size.charAt(size.length() - 1)));
+        if(shift < 0)
+            return Long.parseLong(size);
+        return Long.parseLong(size.substring(0, size.length() - 1)) << (10 * (shift + 1));
+    }
+}
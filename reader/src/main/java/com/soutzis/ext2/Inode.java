@@ -0,0 +1,491 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.*;
+import java.util.*;
+/**
+ *This class reads an Inode and all the metadata it provides
+ *@author Petros Soutzis (p.soutzis@lancaster.ac.uk)
+ */
+
+public class Inode
+{
+    private short i_mode; //file mode
+    private short i_uid; //user ID
+    private int	i_size_lower; //file size in bytes (lower 32 bits)
+    private int i_atime; //time of last access
+    private int	i_ctime; //creation time
+    private int i_mtime; //last modified
+    private int	i_dtime; //time of file deletion
+    private short i_gid; //group ID of owners
+    private short i_links_count; //number of'hard link references to file'
+    private int i_flags; //flags, e.g. whether a directory has a hash tree index
+    private int[] i_block_pointer; //pointers to data blocks or to other pointer blocks
+    private int i_size_upper; //file size in bytes (lower 64 bits)
+    private int inodeNumber; //the number of this inode, or 0 if it is not known
+    private volatile BlockMap blockMap; //the map of logical to physical blocks, created by the first random read
+    private volatile Readahead.Stream readaheadStream; //the readahead state of the file, created by its first read
+
+
+    /**
+     *Constructor of the inode class
+     *@param bytes is the byte array that contains the inode's data
+     */
+    public Inode(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     *Constructor of the inode class. The fields are decoded from the buffer, which is not kept, so that a cached
+     *inode never holds on to the block of the inode table that it was read from.
+     *@param buffer is a view of the inode's data, starting at position 0
+     */
+    public Inode(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        i_block_pointer = new int[Constants.INODE_POINTERS_COUNT];
+        read(buffer); //init
+    }
+
+    /**
+     *This method will readBytes all the data that is contained in the inode, from the buffer, in which the byte array was parsed
+     */
+    private void read(ByteBuffer buffer) {
+        i_mode = buffer.getShort(Constants.I_MODE_OFFSET);
+        i_uid = buffer.getShort(Constants.I_UID_OFFSET);
+        i_size_lower = buffer.getInt(Constants.I_SIZE_LOWER_OFFSET);
+        i_atime = buffer.getInt(Constants.I_ACCESS_TIME_OFFSET);
+        i_ctime = buffer.getInt(Constants.I_CREATION_TIME_OFFSET);
+        i_mtime = buffer.getInt(Constants.I_MODIFICATION_TIME_OFFSET);
+        i_dtime = buffer.getInt(Constants.I_DELETION_TIME_OFFSET);
+        i_gid = buffer.getShort(Constants.I_GID_OFFSET);
+        i_links_count = buffer.getShort(Constants.I_LINKS_COUNT_OFFSET);
+        i_flags = buffer.getInt(Constants.I_FLAGS_OFFSET);
+
+        for(int i=0; i<15; i++)
+            i_block_pointer[i] = buffer.getInt(Constants.I_BLOCK_POINTERS_OFFSET + (i*4));
+
+        i_size_upper = buffer.getInt(Constants.I_SIZE_UPPER_OFFSET);
+    }
+
+    /**
+     *This method uses bitwise ANDing on FileSystem's i_mode variable value,
+     *to determine what permissions a directory or file has.
+     *@return a String with the full permissions of a file or directory
+     */
+    String readPermissions()
+    {
+        String permissions = "";
+
+        if(((int)i_mode & Constants.IFSCK) == Constants.IFSCK)
+            permissions = "socket";
+        else if(((int)i_mode & Constants.IFLNK) == Constants.IFLNK)
+            permissions = "symbolic link";
+        else if(((int)i_mode & Constants.IFREG) == Constants.IFREG)
+            permissions = "-";
+        else if(((int)i_mode & Constants.IFBLK) == Constants.IFBLK)
+            permissions = "block device";
+        else if(((int)i_mode & Constants.IFDIR) == Constants.IFDIR)
+            permissions = "d";
+        else if(((int)i_mode & Constants.IFCHR) == Constants.IFCHR)
+            permissions = "c";
+        else if(((int)i_mode & Constants.IFIFO) == Constants.IFIFO)
+            permissions = "fifo";
+
+        //USER GROUP PERMISSIONS
+        permissions += ((int)i_mode & Constants.IRUSR) == Constants.IRUSR ? "r" : "-";
+        permissions += ((int)i_mode & Constants.IWUSR) == Constants.IWUSR ? "w" : "-";
+        permissions += ((int)i_mode & Constants.IXUSR) == Constants.IXUSR ? "x" : "-";
+
+        //GROUP PERMISSIONS
+        permissions += ((int)i_mode & Constants.IRGRP) == Constants.IRGRP ? "r" : "-";
+        permissions += ((int)i_mode & Constants.IWGRP) == Constants.IWGRP ? "w" : "-";
+        permissions += ((int)i_mode & Constants.IXGRP) == Constants.IXGRP ? "x" : "-";
+
+        //OTHER GROUP PERMISSIONS
+        permissions += ((int)i_mode & Constants.IROTH) == Constants.IROTH ? "r" : "-";
+        permissions += ((int)i_mode & Constants.IWOTH) == Constants.IWOTH ? "w" : "-";
+        permissions += ((int)i_mode & Constants.IXOTH) == Constants.IXOTH ? "x" : "-";
+        permissions += ((int)i_mode & Constants.ISVTX) == Constants.ISVTX ? "t" : "";
+
+        return permissions;
+    }
+
+    /**
+     *This class calculates the inode number, needed to readBytes the data contained in the block that the inode points to
+     *If there was no match, method returns integer 0.
+     *A directory with a hash tree index (dir_index) is searched by the hash of the name, which only reads the
+     *blocks on the path from the root of the tree to the leaf that holds the name (see HTree).
+     *Any other directory is looked up in its in-memory hash index, which covers all of its blocks (including the
+     *ones behind the indirect pointers) and is built on the first lookup in that directory.
+     *@param path is the name of the directory or file to look for
+     *@throws IOException e
+     *@return the inode number that points to the data requested in the path
+     */
+    private static int findInodeOffset(String path, Inode inode, Ext2File ext2) throws IOException {
+        //only directories have entries, the blocks of anything else would not be parsed correctly
+        if(!inode.isDirectory())
+            return 0;
+
+        int inodeNumber = ext2.getHTree().lookup(path, inode, ext2);
+        if(inodeNumber != HTree.NOT_INDEXED)
+            return inodeNumber;
+
+        return ext2.getDirectoryIndexCache().get(inode, ext2).find(path);
+    }
+
+    /**
+     *Looks up a name in a directory, using the dentry cache before scanning the directory's blocks.
+     *The result of every scan is cached, including names that were not found.
+     *@param name is the name of the directory or file to look for
+     *@param directory is the inode of the directory to look in
+     *@throws IOException e
+     *@return the inode number of the entry, or 0 if there is no such entry
+     */
+    private static int lookup(String name, Inode directory, Ext2File ext2) throws IOException {
+        DentryCache dentryCache = ext2.getDentryCache();
+        int parent = directory.getInodeNumber();
+        int inodeNumber = parent > 0 ? dentryCache.lookup(parent, name) : DentryCache.UNKNOWN;
+
+        if(inodeNumber == DentryCache.UNKNOWN) {
+            inodeNumber = findInodeOffset(name, directory, ext2);
+            if(parent > 0)
+                dentryCache.put(parent, name, inodeNumber);
+        }
+
+        return inodeNumber;
+    }
+
+    /**
+     * This method will  get the number of the inode, if the names
+     * in pathArray array match the names in the volume
+     * If the inode number is 0, the program will be terminated.
+     * The method will then parse the bytes to readBytes, to the Inode instance, by calculating
+     * the offset based on the inode number that the path returns.
+     *@param pathArray is the array of names of directories and files, that the
+     *@throws IOException ioe
+     */
+    static Inode getContainingInode(String[] pathArray, int inodeSize, Ext2File ext2, Inode inode,
+                             Superblock superblock, GroupDescriptor groupDescriptor) throws IOException {
+        Inode currentInode = resolve(pathArray, inodeSize, ext2, inode, superblock, groupDescriptor);
+        // Check if path does exist and if not, print an error message (bad path)
+        if (currentInode == null)
+            System.out.println("No such file or directory");
+        return currentInode;
+    }
+
+    /**
+     *Resolves a path like getContainingInode() does, but without printing anything, for use as a library.
+     *Every resolution is counted in the metrics of the disk, and is a JFR event.
+     *@param pathArray is the array of names of directories and files, starting from the given inode
+     *@param inode is the inode of the directory that the path starts from
+     *@throws IOException if a directory or an inode could not be read
+     *@return the inode of the path, or null if any of its names does not exist
+     */
+    static Inode resolve(String[] pathArray, int inodeSize, Ext2File ext2, Inode inode,
+                         Superblock superblock, GroupDescriptor groupDescriptor) throws IOException {
+        Metrics.LookupEvent event = Metrics.beginLookup();
+        long start = System.nanoTime();
+        Inode currentInode = inode;
+        for (String fragment : pathArray) {
+            int inodeOffset = lookup(fragment, currentInode, ext2);
+            if (inodeOffset <= 0) {
+                currentInode = null;
+                break;
+            }
+            //Get the inode from the cache, or from its containing block, given the inode number found above.
+            currentInode = readInode(inodeOffset, inodeSize, ext2, superblock, groupDescriptor);
+        }
+        ext2.getMetrics().recordLookup(pathArray, currentInode, event, start);
+        return currentInode;
+    }
+
+    /**
+     *Returns the inode with the given number. Inodes that were decoded before are served from the inode cache,
+     *otherwise the inode is read from its containing block and then cached.
+     *@param inodeNumber the number of the inode to read
+     *@throws IOException if the inode could not be read from the volume
+     *@return the decoded inode
+     */
+    static Inode readInode(int inodeNumber, int inodeSize, Ext2File ext2,
+                           Superblock superblock, GroupDescriptor groupDescriptor) throws IOException {
+        InodeCache inodeCache = ext2.getInodeCache();
+        Inode inode = inodeCache.get(inodeNumber);
+
+        if(inode == null) {
+            inode = new Inode(ext2.readMetadata(getContainingBlock(inodeNumber, superblock, groupDescriptor), inodeSize,
+                    Metrics.INODE_TABLE));
+            inode.inodeNumber = inodeNumber;
+            //inode number 0 is not a valid inode (it marks unused entries), so it is never cached
+            if(inodeNumber > 0)
+                inodeCache.put(inodeNumber, inode);
+        }
+
+        return inode;
+    }
+
+    /**
+     *Returns the inodes with the given numbers, like readInode() would, but fetches all the ones that are not cached
+     *in a single pass: they are sorted by the inode table block that contains them, each of those blocks is read
+     *only once (consecutive blocks as one run), and every inode in a block is decoded while the block is at hand.
+     *@param inodeNumbers the numbers of the inodes to read
+     *@throws IOException if an inode table block could not be read from the volume
+     *@return the decoded inodes, in the same order as their numbers
+     */
+    static Inode[] readInodes(int[] inodeNumbers, int inodeSize, Ext2File ext2,
+                              Superblock superblock, GroupDescriptor groupDescriptor) throws IOException {
+        InodeCache inodeCache = ext2.getInodeCache();
+        Inode[] inodes = new Inode[inodeNumbers.length];
+        //the containing block of every inode that is not cached (upper 32 bits) and its index (lower 32 bits)
+        long[] pending = new long[inodeNumbers.length];
+        int pendingCount = 0;
+
+        for(int i = 0; i < inodeNumbers.length; i++) {
+            inodes[i] = inodeNumbers[i] > 0 ? inodeCache.get(inodeNumbers[i]) : null;
+            if(inodes[i] == null) {
+                long blockNumber = getContainingBlock(inodeNumbers[i], superblock, groupDescriptor)
+                        / ext2.getBlockSize();
+                pending[pendingCount++] = (blockNumber << 32) | i;
+            }
+        }
+        //sorting by block number means that the inode table is read in a single sequential sweep. Block numbers use
+        //all 32 bits, so the keys are sorted as unsigned values: flipping their sign bits before and after a signed
+        //sort gives the unsigned order
+        for(int p = 0; p < pendingCount; p++)
+            pending[p] ^= Long.MIN_VALUE;
+        Arrays.sort(pending, 0, pendingCount);
+        for(int p = 0; p < pendingCount; p++)
+            pending[p] ^= Long.MIN_VALUE;
+
+        int maxBlocks = Math.max(1, ext2.getMaxIoSize() / ext2.getBlockSize());
+        int first = 0;
+        while(first < pendingCount) {
+            //extend the run over all the pending inodes whose blocks are the same as, or follow, the previous block
+            long runStart = pending[first] >>> 32;
+            int last = first + 1;
+            while(last < pendingCount) {
+                long blockNumber = pending[last] >>> 32, previous = pending[last - 1] >>> 32;
+                if(blockNumber - previous > 1 || blockNumber - runStart >= maxBlocks)
+                    break;
+                last++;
+            }
+
+            int blockCount = (int)((pending[last - 1] >>> 32) - runStart) + 1;
+            ByteBuffer[] blocks = ext2.readMetadataRun(runStart, blockCount, Metrics.INODE_TABLE);
+            for(int p = first; p < last; p++) {
+                int i = (int) pending[p];
+                ByteBuffer block = blocks[(int)((pending[p] >>> 32) - runStart)].duplicate();
+                long inodeOffset = getContainingBlock(inodeNumbers[i], superblock, groupDescriptor);
+                int offset = (int)(inodeOffset % ext2.getBlockSize());
+                block.position(offset);
+                block.limit(offset + inodeSize);
+
+                inodes[i] = new Inode(block.slice());
+                inodes[i].inodeNumber = inodeNumbers[i];
+                if(inodeNumbers[i] > 0)
+                    inodeCache.put(inodeNumbers[i], inodes[i]);
+            }
+            first = last;
+        }
+
+        return inodes;
+    }
+
+    /**
+     *A static method, used for fetching the byte offset on the volume of an inode. Otherwise, it returns 0
+     *@param rootInodeOffset The number of the inode, with which this method will calculate the offset
+     *@return the absolute byte offset of the inode on the volume (not within its block of the inode table), or 0 if
+     *the inode number is not valid
+     */
+    static long getContainingBlock(int rootInodeOffset, Superblock superblock, GroupDescriptor groupDescriptor) {
+
+        //Total number of inodes in the filesystem
+        long inodeCount = superblock.getInodeCount();
+        //Total number of inodes per block group
+        int inodesPerGroup = superblock.getInodesPerGroup();
+        //Size of inodes, as readBytes from the superblock
+        int inodeSize = superblock.getInodeSize();
+        //Size of blocks, as readBytes from the superblock
+        int blockSize = superblock.getBlockSize();
+
+        //only perform calculations for valid inode numbers, which start from 1 and go up to the inode count.
+        //All the arithmetic is done in longs, as the offsets of volumes larger than 2GiB do not fit in an int.
+        if (rootInodeOffset >= 1 && rootInodeOffset <= inodeCount) {
+            //because inodes start counting from 1, but start from 0 in the inode table
+            long index = rootInodeOffset - 1L;
+            //dividing the inode number with the number of inodes per group,
+            //to get the index of the inode in the Descriptor table
+            int group = (int)(index / inodesPerGroup);
+            //the remainder of the above equation is the index of the inode within the group's inode table.
+            //http://cs.smith.edu/~nhowe/262/oldlabs/ext2.html
+            long indexInGroup = index % inodesPerGroup;
+
+            return groupDescriptor.getInodeTable(group) * blockSize + indexInGroup * inodeSize;
+        }
+        //otherwise return 0, which is the first block
+        return 0;
+    }
+
+    /**
+     *@return the number of this inode, or 0 if it was not read by its number
+     */
+    public int getInodeNumber() {
+        return inodeNumber;
+    }
+
+    /**
+     *@return the array of all the data pointers in an inode
+     */
+    int[] getBlockPointers() {
+        return i_block_pointer;
+    }
+
+    /**
+     *@return the map of the logical blocks of this inode to their physical blocks, which keeps the pointer blocks
+     *of the last lookup for as long as this inode is cached
+     */
+    BlockMap getBlockMap() {
+        BlockMap map = blockMap;
+        //two threads may both create a map, but either one of them is correct, so no lock is needed
+        if(map == null)
+            blockMap = map = new BlockMap(i_block_pointer);
+        return map;
+    }
+
+    /**
+     *@return the readahead state of this file, which is kept for as long as this inode is cached
+     */
+    Readahead.Stream getReadaheadStream() {
+        Readahead.Stream stream = readaheadStream;
+        //if two threads both create a stream, one of them is lost, which only costs a window that is read again
+        if(stream == null)
+            readaheadStream = stream = new Readahead.Stream();
+        return stream;
+    }
+
+    /**
+     *@return If the user has root access or not
+     */
+    String getUid() {
+        return i_uid == 0 ? "root" : "user";
+    }
+
+    /**
+     *@return If the guest has root access or not
+     */
+    String getGid() {
+        return i_gid == 0 ? "root" : "group";
+    }
+
+    /**
+     *@return the numeric user ID of the owner
+     */
+    int getUidNumber() {
+        return i_uid & 0xFFFF;
+    }
+
+    /**
+     *@return the numeric group ID of the owners
+     */
+    int getGidNumber() {
+        return i_gid & 0xFFFF;
+    }
+
+    /**
+     *@return the file type bits of the file mode (one of the IF* constants)
+     */
+    int getFileType() {
+        return (int) i_mode & Constants.IFMT;
+    }
+
+    /**
+     *@return the permission bits of the file mode (read, write and execute for the user, group and others)
+     */
+    int getPermissionBits() {
+        return (int) i_mode & 0x1FF;
+    }
+
+    /**
+     *@return the time of last access, in seconds since the epoch
+     */
+    long getAccessTime() {
+        return i_atime & 0xFFFFFFFFL;
+    }
+
+    /**
+     *@return the creation time, in seconds since the epoch
+     */
+    long getCreationTime() {
+        return i_ctime & 0xFFFFFFFFL;
+    }
+
+    /**
+     *@return the time of last modification, in seconds since the epoch
+     */
+    long getModificationTime() {
+        return i_mtime & 0xFFFFFFFFL;
+    }
+
+    /**
+     *@return the time of deletion, in seconds since the epoch, or 0 if the file was not deleted
+     */
+    long getDeletionTime() {
+        return i_dtime & 0xFFFFFFFFL;
+    }
+
+    /**
+     *@return the file size in bytes, made of the lower and upper 32 bits
+     */
+    public long getSize() {
+        return ((long)i_size_upper << 32) | ((long)i_size_lower & 0xFFFFFFFFL);
+    }
+
+    /**
+     *@return the file size (lower 32 bits)
+     */
+    int getSizeLower() {
+        return i_size_lower;
+    }
+
+    /**
+     *@return the file size (upper 32 bits)
+     */
+    int getSizeUpper() {
+        return i_size_upper;
+    }
+
+    /**
+     *@return true, if this is a directory that has a hash tree index. Otherwise, return false.
+     */
+    boolean isHashIndexed() {
+        return isDirectory() && (i_flags & Constants.INDEX_FL) != 0;
+    }
+
+    /**
+     *@return true, if this is a directory. Otherwise, return false.
+     */
+    public boolean isDirectory() {
+        return ((int) i_mode & Constants.IFMT) == Constants.IFDIR;
+    }
+
+    /**
+     *@return true, if this is a file. Otherwise, return false.
+     */
+    public boolean isFile() {
+        return ((int) i_mode & Constants.IFREG) == Constants.IFREG;
+    }
+
+    /**
+     *@return the date that this file was lastly modified
+     */
+    public Date getDate() {
+        return new Date((long)i_ctime*1000);
+    }
+
+    /**
+     *@return the number of hard link references to a file (i_links_count is an unsigned 16-bit value)
+     */
+    int getHardLinks() {
+        return i_links_count & 0xFFFF;
+    }
+
+}
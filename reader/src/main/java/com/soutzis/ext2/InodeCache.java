@@ -0,0 +1,148 @@
+package com.soutzis.ext2;
+
+/**
+ *This class is a bounded cache of decoded inodes, keyed by inode number.
+ *The keys are kept in a primitive open-addressing hash table (linear probing), so no Integer is ever boxed.
+ *When the cache is full, the CLOCK algorithm picks the entry to replace: every entry has a reference bit
+ *that is set on each hit, and the clock hand clears reference bits until it finds an entry without one.
+ *@author Petros Soutzis
+ */
+class InodeCache {
+    private final int capacity;
+    private final int mask; //the hash table size minus one, the size is a power of two
+    private final int[] table; //entry index + 1 for each hash slot, or 0 if the slot is empty
+    private final int[] keys; //the inode number of each entry
+    private final Inode[] values; //the decoded inode of each entry
+    private final boolean[] referenced; //the reference bit of each entry
+    private int count, hand;
+    private long hits, misses;
+
+    /**
+     *Constructor of the InodeCache class
+     *@param capacity the maximum number of inodes that the cache will hold
+     */
+    InodeCache(int capacity) {
+        this.capacity = capacity;
+        //keep the load factor of the hash table at or below 0.5, so that probe sequences stay short
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+        mask = tableSize - 1;
+        table = new int[tableSize];
+        keys = new int[capacity];
+        values = new Inode[capacity];
+        referenced = new boolean[capacity];
+    }
+
+    /**
+     *@param inodeNumber the number of the inode to look for
+     *@return the cached inode, or null if it is not cached
+     */
+    synchronized Inode get(int inodeNumber) {
+        int slot = find(inodeNumber);
+        if(slot < 0) {
+            misses++;
+            return null;
+        }
+        int entry = table[slot] - 1;
+        referenced[entry] = true;
+        hits++;
+
+        return values[entry];
+    }
+
+    /**
+     *@param inodeNumber the number of the inode that will be cached
+     *@param inode the decoded inode
+     */
+    synchronized void put(int inodeNumber, Inode inode) {
+        if(capacity == 0)
+            return;
+
+        int slot = find(inodeNumber);
+        if(slot >= 0) {
+            values[table[slot] - 1] = inode;
+            return;
+        }
+
+        int entry;
+        if(count < capacity)
+            entry = count++;
+        else {
+            //advance the clock hand, giving a second chance to every entry that was used since the last pass
+            while(referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % capacity;
+            }
+            entry = hand;
+            hand = (hand + 1) % capacity;
+            remove(find(keys[entry]));
+        }
+
+        keys[entry] = inodeNumber;
+        values[entry] = inode;
+        referenced[entry] = false;
+        slot = hash(inodeNumber);
+        while(table[slot] != 0)
+            slot = (slot + 1) & mask;
+        table[slot] = entry + 1;
+    }
+
+    /**
+     *@return the number of lookups that found the inode in the cache
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     *@return the number of lookups that did not find the inode in the cache
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     *@return the fraction of lookups that found the inode in the cache, or 0 if there were no lookups
+     */
+    synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("inode cache: %d/%d inodes, %d hits, %d misses, %.1f%% hit rate",
+                count, capacity, hits, misses, getHitRate() * 100);
+    }
+
+    /**
+     *@return the hash slot that holds the given inode number, or -1 if it is not in the table
+     */
+    private int find(int inodeNumber) {
+        for(int slot = hash(inodeNumber); table[slot] != 0; slot = (slot + 1) & mask) {
+            if(keys[table[slot] - 1] == inodeNumber)
+                return slot;
+        }
+        return -1;
+    }
+
+    /**
+     *Empties a hash slot and shifts back any following entries of the same probe sequence,
+     *so that lookups never stop early at the hole.
+     */
+    private void remove(int slot) {
+        table[slot] = 0;
+        for(int next = (slot + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = hash(keys[table[next] - 1]);
+            //move the entry back if its home slot is not within (slot, next], taking wrap-around into account
+            if(((next - home) & mask) >= ((next - slot) & mask)) {
+                table[slot] = table[next];
+                table[next] = 0;
+                slot = next;
+            }
+        }
+    }
+
+    private int hash(int inodeNumber) {
+        return (inodeNumber * 0x9E3779B9 >>> 16 ^ inodeNumber) & mask;
+    }
+}
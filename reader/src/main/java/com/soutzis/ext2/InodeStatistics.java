@@ -0,0 +1,102 @@
+package com.soutzis.ext2;
+
+/**
+ *This class gathers statistics over the inodes of the volume, for the "scan" command: a histogram of the file
+ *types, a distribution of the file sizes (in powers of two) and a histogram of the hard link counts.
+ *An inode is counted as in use if it has at least one hard link.
+ *@author Petros Soutzis
+ */
+class InodeStatistics implements InodeTableScanner.InodeVisitor<InodeStatistics> {
+    //The file types, in the order that they are counted and printed
+    private static final int[] TYPES = {Constants.IFREG, Constants.IFDIR, Constants.IFLNK, Constants.IFCHR,
+            Constants.IFBLK, Constants.IFIFO, Constants.IFSCK};
+    private static final String[] TYPE_NAMES = {"regular file", "directory", "symbolic link", "character device",
+            "block device", "fifo", "socket", "unknown"};
+    //Link counts of this number or more are counted together
+    private static final int MAX_LINKS = 16;
+
+    private long inodes, used, deleted, totalSize;
+    private final long[] types = new long[TYPE_NAMES.length];
+    //sizes[0] counts empty files, sizes[n] counts sizes from 2^(n-1) up to 2^n - 1 bytes
+    private final long[] sizes = new long[64];
+    private final long[] links = new long[MAX_LINKS + 1];
+
+    @Override
+    public void visit(int inodeNumber, Inode inode) {
+        inodes++;
+        if(inode.getHardLinks() == 0) {
+            if(inode.getDeletionTime() != 0)
+                deleted++;
+            return;
+        }
+
+        used++;
+        int type = 0;
+        while(type < TYPES.length && TYPES[type] != inode.getFileType())
+            type++;
+        types[type]++;
+
+        long size = inode.getSize();
+        totalSize += size;
+        //a negative size can only come from a corrupted inode, so it is counted with the largest sizes
+        sizes[Math.min(sizes.length - 1, 64 - Long.numberOfLeadingZeros(size))]++;
+        links[Math.min(inode.getHardLinks(), MAX_LINKS)]++;
+    }
+
+    @Override
+    public void merge(InodeStatistics other) {
+        inodes += other.inodes;
+        used += other.used;
+        deleted += other.deleted;
+        totalSize += other.totalSize;
+        for(int i = 0; i < types.length; i++)
+            types[i] += other.types[i];
+        for(int i = 0; i < sizes.length; i++)
+            sizes[i] += other.sizes[i];
+        for(int i = 0; i < links.length; i++)
+            links[i] += other.links[i];
+    }
+
+    /**
+     *Prints the statistics
+     */
+    void print() {
+        System.out.println("Inodes scanned: " + inodes + ", in use: " + used + ", deleted: " + deleted);
+        System.out.println("Total size of the inodes in use: " + totalSize + " bytes");
+
+        System.out.println("\nFile types:");
+        for(int i = 0; i < types.length; i++) {
+            if(types[i] > 0)
+                System.out.format("%-18s %d%n", TYPE_NAMES[i], types[i]);
+        }
+
+        System.out.println("\nFile sizes:");
+        for(int i = 0; i < sizes.length; i++) {
+            if(sizes[i] == 0)
+                continue;
+            if(i == 0)
+                System.out.format("%-18s %d%n", "0", sizes[i]);
+            else
+                System.out.format("%-18s %d%n", "< " + humanReadable(1L << i), sizes[i]);
+        }
+
+        System.out.println("\nHard links:");
+        for(int i = 1; i < links.length; i++) {
+            if(links[i] > 0)
+                System.out.format("%-18s %d%n", i == MAX_LINKS ? MAX_LINKS + "+" : String.valueOf(i), links[i]);
+        }
+    }
+
+    /**
+     *@return a size in bytes, in the largest unit (B, K, M, G, T, P, E) that it is a whole multiple of
+     */
+    private static String humanReadable(long bytes) {
+        String units = "BKMGTPE";
+        int unit = 0;
+        while(bytes >= 1024 && bytes % 1024 == 0 && unit < units.length() - 1) {
+            bytes /= 1024;
+            unit++;
+        }
+        return bytes + String.valueOf(units.charAt(unit));
+    }
+}
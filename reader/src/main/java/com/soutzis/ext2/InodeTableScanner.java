@@ -0,0 +1,133 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ *This class scans every inode on the volume, without walking any directory. The inode table of each block group
+ *(found through the group descriptor's inode table pointers) is read sequentially, in chunks of the Ext2File's
+ *maximum I/O size, and the block groups are scanned in parallel on a ForkJoin pool.
+ *Every inode is given to a visitor; each block group gets its own visitor, and the visitors of all the groups are
+ *merged together at the end, so that visitors never have to be thread-safe.
+ *The scan bypasses the block cache, so that it does not push out any cached metadata.
+ *@author Petros Soutzis
+ */
+class InodeTableScanner {
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+
+    /**
+     *A visitor of the inodes of the inode tables. A new visitor is made for every block group.
+     *@param <V> the type of the visitor itself, so that visitors of the same kind can be merged
+     */
+    interface InodeVisitor<V extends InodeVisitor<V>> {
+        /**
+         *@param inodeNumber the number of the inode
+         *@param inode the decoded inode
+         */
+        void visit(int inodeNumber, Inode inode);
+
+        /**
+         *Adds the results of another visitor (of other block groups) into this visitor
+         *@param other the visitor to merge into this one
+         */
+        void merge(V other);
+    }
+
+    /**
+     *Scans the inode tables of all the block groups in parallel.
+     *@param factory makes a new, empty visitor for every block group
+     *@param ext2 The disk
+     *@param superblock The superblock
+     *@param groupDescriptor The group descriptor
+     *@throws IOException if an inode table could not be read
+     *@return the visitor that holds the merged results of all the block groups
+     */
+    static <V extends InodeVisitor<V>> V scan(Supplier<V> factory, Ext2File ext2, Superblock superblock,
+                                              GroupDescriptor groupDescriptor) throws IOException {
+        int groupCount = groupDescriptor.getGroupCount();
+        try {
+            return POOL.invoke(new GroupTask<>(0, groupCount, factory, ext2, superblock, groupDescriptor));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     *Scans the inode table of a single block group, feeding every inode to the visitor in inode number order.
+     *@param group the index of the block group
+     *@param visitor the visitor of the block group
+     *@throws IOException if the inode table could not be read
+     */
+    static void scanGroup(int group, InodeVisitor<?> visitor, Ext2File ext2, Superblock superblock,
+                          GroupDescriptor groupDescriptor) throws IOException {
+        int inodesPerGroup = superblock.getInodesPerGroup();
+        int inodeSize = superblock.getInodeSize();
+        //the last group may hold fewer inodes than inodesPerGroup, if the inode count is not a multiple of it
+        int inodeCount = (int) Math.min(inodesPerGroup, superblock.getInodeCount() - (long) group * inodesPerGroup);
+        long tableStart = groupDescriptor.getInodeTable(group) * superblock.getBlockSize();
+        int inodesPerChunk = Math.max(1, ext2.getMaxIoSize() / inodeSize);
+
+        for(int first = 0; first < inodeCount; first += inodesPerChunk) {
+            int count = Math.min(inodesPerChunk, inodeCount - first);
+            ByteBuffer chunk = ext2.readBuffer(tableStart + (long) first * inodeSize, (long) count * inodeSize,
+                    Metrics.INODE_TABLE);
+
+            for(int i = 0; i < count; i++) {
+                chunk.position(i * inodeSize);
+                chunk.limit((i + 1) * inodeSize);
+                //inode numbers start from 1
+                visitor.visit(group * inodesPerGroup + first + i + 1, new Inode(chunk.slice()));
+                chunk.limit(chunk.capacity());
+            }
+        }
+    }
+
+    /**
+     *The task that scans a range of block groups, by splitting it in half until a single group is left.
+     */
+    private static class GroupTask<V extends InodeVisitor<V>> extends RecursiveTask<V> {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+        private final Supplier<V> factory;
+        private final Ext2File ext2;
+        private final Superblock superblock;
+        private final GroupDescriptor groupDescriptor;
+
+        private GroupTask(int from, int to, Supplier<V> factory, Ext2File ext2, Superblock superblock,
+                          GroupDescriptor groupDescriptor) {
+            this.from = from;
+            this.to = to;
+            this.factory = factory;
+            this.ext2 = ext2;
+            this.superblock = superblock;
+            this.groupDescriptor = groupDescriptor;
+        }
+
+        @Override
+        protected V compute() {
+            if(to - from > 1) {
+                int middle = (from + to) >>> 1;
+                GroupTask<V> second = new GroupTask<>(middle, to, factory, ext2, superblock, groupDescriptor);
+                second.fork();
+                V result = new GroupTask<>(from, middle, factory, ext2, superblock, groupDescriptor).compute();
+                result.merge(second.join());
+                return result;
+            }
+
+            V visitor = factory.get();
+            try {
+                if(from < to)
+                    scanGroup(from, visitor, ext2, superblock, groupDescriptor);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return visitor;
+        }
+    }
+}
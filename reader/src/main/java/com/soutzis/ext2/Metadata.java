@@ -1,3 +1,5 @@
+package com.soutzis.ext2;
+
 /**
  * This class holds general information about this project.
  * @author Petros Soutzis
@@ -0,0 +1,316 @@
+package com.soutzis.ext2;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *This class gathers metrics over the reads of the volume, the resolution of paths and the commands that are run, for
+ *the "stats" command. Every read from the volume (not the ones that are answered by the block cache) is counted by
+ *its kind, along with its bytes and a histogram of its latency, and so is every path resolution and every command.
+ *A read is also counted as a seek if it does not start where the previous read of the same thread ended (readahead,
+ *which runs in the background, is not counted as seeks and does not break the sequence of the other reads). The
+ *offset where the last read ended is kept per thread, as the reads of different threads interleave, and so that no
+ *field is written by every read of every thread.
+ *A read that only returns a view of a memory-mapped volume is counted but not timed, as it takes no longer than
+ *finding the mapped range: its bytes are only paged in when they are used.
+ *All the counters are LongAdders, so any number of threads can update them without contention or locks, and
+ *they are only summed when the metrics are printed (which makes the printed values approximate, while reads are
+ *still going on).
+ *Every read and path resolution is also a JFR event (see ReadEvent and LookupEvent). The events are only created
+ *while a flight recording has them enabled, e.g. with -XX:StartFlightRecording, so otherwise they cost nothing.
+ *@author Petros Soutzis
+ */
+class Metrics {
+    //The kinds of reads, which index KIND_NAMES
+    static final int SUPERBLOCK = 0, GROUP_DESCRIPTOR = 1, INODE_TABLE = 2, DIRECTORY = 3, INDIRECT = 4, DATA = 5,
+            READAHEAD = 6, BITMAP = 7;
+    private static final String[] KIND_NAMES = {"superblock", "group descriptor", "inode table", "directory",
+            "indirect block", "data", "readahead", "bitmap"};
+
+    private final LongAdder[] reads = new LongAdder[KIND_NAMES.length];
+    private final LongAdder[] bytes = new LongAdder[KIND_NAMES.length];
+    private final Histogram[] latencies = new Histogram[KIND_NAMES.length];
+    //The types of the JFR events, which tell if a recording has them enabled, or null if the JVM has no JFR
+    private static final EventType READ_EVENT = eventType(ReadEvent.class), LOOKUP_EVENT = eventType(LookupEvent.class);
+    private final LongAdder seeks = new LongAdder();
+    //The offset where the last read of each thread ended
+    private final ThreadLocal<long[]> nextOffset = ThreadLocal.withInitial(() -> new long[] {-1});
+    private final Histogram lookups = new Histogram();
+    private final Map<String, Histogram> commands = new ConcurrentHashMap<>();
+
+    /**
+     *Constructor of the Metrics class
+     */
+    Metrics() {
+        for(int i = 0; i < KIND_NAMES.length; i++) {
+            reads[i] = new LongAdder();
+            bytes[i] = new LongAdder();
+            latencies[i] = new Histogram();
+        }
+    }
+
+    private static EventType eventType(Class<? extends Event> eventClass) {
+        try {
+            return EventType.getEventType(eventClass);
+        }
+        catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     *@return a ReadEvent that has begun, to be passed to recordRead() after the read, or null if no recording has
+     *the event enabled
+     */
+    static ReadEvent beginRead() {
+        if(READ_EVENT == null || !READ_EVENT.isEnabled())
+            return null;
+        ReadEvent event = new ReadEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     *@return a LookupEvent that has begun, to be passed to recordLookup() after the path is resolved, or null if no
+     *recording has the event enabled
+     */
+    static LookupEvent beginLookup() {
+        if(LOOKUP_EVENT == null || !LOOKUP_EVENT.isEnabled())
+            return null;
+        LookupEvent event = new LookupEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     *Counts a read from the volume, and commits its JFR event.
+     *@param kind the kind of the read (SUPERBLOCK, GROUP_DESCRIPTOR, INODE_TABLE, DIRECTORY, INDIRECT, DATA,
+     *READAHEAD or BITMAP)
+     *@param startByte the offset of the first byte that was read
+     *@param length the number of bytes that were read
+     *@param nanos the time that the read took in nanoseconds, or -1 if it was not timed
+     *@param event the event that beginRead() returned before the read
+     */
+    void recordRead(int kind, long startByte, long length, long nanos, ReadEvent event) {
+        reads[kind].increment();
+        bytes[kind].add(length);
+        if(nanos >= 0)
+            latencies[kind].record(nanos);
+        if(kind != READAHEAD) {
+            long[] offset = nextOffset.get();
+            if(startByte != offset[0])
+                seeks.increment();
+            offset[0] = startByte + length;
+        }
+
+        if(event == null)
+            return;
+        event.end();
+        if(event.shouldCommit()) {
+            event.kind = KIND_NAMES[kind];
+            event.offset = startByte;
+            event.length = length;
+            event.commit();
+        }
+    }
+
+    /**
+     *Counts a path resolution, and commits its JFR event.
+     *@param pathArray the names of the path, from the directory that it was resolved from
+     *@param inode the inode that the path resolved to, or null if it does not exist
+     *@param event the event that beginLookup() returned before the path was resolved
+     *@param start the value of System.nanoTime() before the path was resolved
+     */
+    void recordLookup(String[] pathArray, Inode inode, LookupEvent event, long start) {
+        lookups.record(System.nanoTime() - start);
+
+        if(event == null)
+            return;
+        event.end();
+        if(event.shouldCommit()) {
+            event.path = String.join("/", pathArray);
+            event.inode = inode == null ? 0 : inode.getInodeNumber();
+            event.depth = pathArray.length;
+            event.commit();
+        }
+    }
+
+    /**
+     *Counts a run of a command.
+     *@param command the name of the command
+     *@param nanos the time that the command took, in nanoseconds
+     */
+    void recordCommand(String command, long nanos) {
+        commands.computeIfAbsent(command, c -> new Histogram()).record(nanos);
+    }
+
+    /**
+     *Sets every counter back to zero. Updates that happen at the same time may be kept or lost.
+     */
+    void reset() {
+        for(int i = 0; i < KIND_NAMES.length; i++) {
+            reads[i].reset();
+            bytes[i].reset();
+            latencies[i].reset();
+        }
+        seeks.reset();
+        lookups.reset();
+        commands.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-18s %10s %14s %10s %10s %10s %10s%n", "reads", "count", "bytes", "mean us",
+                "p50 us", "p99 us", "max us"));
+        long totalReads = 0;
+        for(int i = 0; i < KIND_NAMES.length; i++) {
+            long count = reads[i].sum();
+            totalReads += count;
+            if(count > 0)
+                latencies[i].format(sb, KIND_NAMES[i], count, bytes[i].sum());
+        }
+        sb.append(String.format("%d reads, %d of them seeks%n", totalReads, seeks.sum()));
+
+        if(lookups.getCount() > 0) {
+            sb.append(String.format("%n%-18s %10s %14s %10s %10s %10s %10s%n", "path lookups", "count", "",
+                    "mean us", "p50 us", "p99 us", "max us"));
+            lookups.format(sb, "lookup", lookups.getCount(), -1);
+        }
+
+        //the commands are printed by name, in order
+        Map<String, Histogram> sorted = new TreeMap<>(commands);
+        if(!sorted.isEmpty()) {
+            sb.append(String.format("%n%-18s %10s %14s %10s %10s %10s %10s%n", "commands", "count", "", "mean us",
+                    "p50 us", "p99 us", "max us"));
+            for(Map.Entry<String, Histogram> entry : sorted.entrySet())
+                entry.getValue().format(sb, entry.getKey(), entry.getValue().getCount(), -1);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     *A histogram of latencies, in buckets of powers of two nanoseconds. Its percentiles are the upper bounds of
+     *their buckets, so they are at most twice the real ones (and never more than the maximum).
+     */
+    static class Histogram {
+        //buckets[0] counts latencies of 0 ns, buckets[n] counts latencies from 2^(n-1) up to 2^n - 1 ns
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram() {
+            for(int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        /**
+         *@param nanos a latency in nanoseconds (negative latencies, which nanoTime() should never give, count as 0)
+         */
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets[64 - Long.numberOfLeadingZeros(nanos)].increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        /**
+         *@return the number of latencies that were recorded
+         */
+        long getCount() {
+            long count = 0;
+            for(LongAdder bucket : buckets)
+                count += bucket.sum();
+            return count;
+        }
+
+        /**
+         *@param fraction the fraction of the latencies that are at most the percentile, e.g. 0.99
+         *@return the upper bound of the bucket that holds the percentile, in nanoseconds
+         */
+        long getPercentile(double fraction) {
+            long[] counts = new long[buckets.length];
+            long count = 0;
+            for(int i = 0; i < buckets.length; i++)
+                count += counts[i] = buckets[i].sum();
+            long rank = (long) Math.ceil(fraction * count), seen = 0;
+            for(int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= rank && seen > 0)
+                    return Math.min(max.get(), i == 0 ? 0 : (1L << i) - 1);
+            }
+            return max.get();
+        }
+
+        private void reset() {
+            for(LongAdder bucket : buckets)
+                bucket.reset();
+            total.reset();
+            max.reset();
+        }
+
+        /**
+         *Appends one line for this histogram, under the header that toString() prints. The latencies are left out
+         *if none were recorded (as for the reads of a memory-mapped volume).
+         *@param count the number of events to print, which may be more than the number of latencies
+         *@param bytes the number of bytes to print, or -1 if the histogram does not count bytes
+         */
+        private void format(StringBuilder sb, String name, long count, long bytes) {
+            sb.append(String.format("%-18s %10d %14s", name, count, bytes < 0 ? "" : String.valueOf(bytes)));
+            long timed = getCount();
+            if(timed > 0)
+                sb.append(String.format(" %10.1f %10.1f %10.1f %10.1f", micros(total.sum()) / timed,
+                        micros(getPercentile(0.5)), micros(getPercentile(0.99)), micros(max.get())));
+            sb.append(String.format("%n"));
+        }
+
+        private static double micros(long nanos) {
+            return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+        }
+    }
+
+    /**
+     *The JFR event of a read from the volume, which is committed by recordRead().
+     */
+    @Name("com.soutzis.ext2.Read")
+    @Label("EXT2 Read")
+    @Category("EXT2")
+    @StackTrace(false)
+    static class ReadEvent extends Event {
+        @Label("Kind")
+        String kind;
+        @Label("Offset")
+        long offset;
+        @Label("Length")
+        @DataAmount
+        long length;
+    }
+
+    /**
+     *The JFR event of a path resolution, which is committed by recordLookup().
+     */
+    @Name("com.soutzis.ext2.Lookup")
+    @Label("EXT2 Path Lookup")
+    @Category("EXT2")
+    static class LookupEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Inode")
+        int inode;
+        @Label("Depth")
+        int depth;
+    }
+}
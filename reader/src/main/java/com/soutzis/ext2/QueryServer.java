@@ -0,0 +1,251 @@
+package com.soutzis.ext2;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ *This class serves queries about one mounted image to local clients, over TCP on the loopback interface, so that
+ *the superblock and group descriptors are only read once and every client shares the same caches.
+ *Every connection is handled by a thread of its own, which is a virtual thread if the JVM has them (Java 21 or
+ *later; they are created through reflection, as the reader is built for Java 11), or a thread of a cached pool.
+ *The protocol is line based, and its requests are named after the shell commands:
+ *<pre>
+ *ls PATH                    the names of the entries of a directory, one per line
+ *stat PATH                  the fields of an inode, one "name: value" per line
+ *cat PATH [OFFSET [LENGTH]] the bytes of a file, or of a range of it
+ *stats                      the metrics of the reads, path lookups and requests, and the state of every cache
+ *stats reset                sets the metrics back to zero, with an empty response
+ *quit                       closes the connection
+ *</pre>
+ *Every response starts with a header line, "OK length" followed by exactly length bytes, or "ERR message".
+ *Requests can be pipelined: the responses are only flushed when no more requests are waiting to be read.
+ *@author Petros Soutzis
+ */
+class QueryServer implements Closeable {
+    static final String STAT = "stat", QUIT = "quit";
+    private static final Set<String> REQUESTS = new HashSet<>(Arrays.asList(Command.LS, STAT, Command.CAT,
+            Command.STATS));
+    private static final Pattern SPACES = Pattern.compile(" +");
+    private static final int BACKLOG = 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private final Ext2FileSystem fileSystem;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = newThreadPerTaskExecutor();
+
+    /**
+     *Constructor of the QueryServer class, which binds the server socket, but does not accept any client yet.
+     *@param fileSystem the mounted image, which is shared by all the clients
+     *@param port the port to listen on, on the loopback interface (0 for any free port)
+     *@throws IOException if the port can not be bound
+     */
+    QueryServer(Ext2FileSystem fileSystem, int port) throws IOException {
+        this.fileSystem = fileSystem;
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     *@return a virtual thread per task executor if the JVM supports virtual threads, or a cached thread pool
+     */
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            //no virtual threads (or only as a preview feature that is not enabled)
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "ext2-query");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     *@return the port that the server listens on
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     *Accepts clients until the server is closed, handing each connection to a thread of its own.
+     *@throws IOException if the server socket fails for any reason other than being closed
+     */
+    void serve() throws IOException {
+        while(!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            }
+            catch (SocketException e) {
+                if(serverSocket.isClosed())
+                    return;
+                throw e;
+            }
+            executor.execute(() -> handle(socket));
+        }
+    }
+
+    /**
+     *Answers the requests of one client, in order, until it quits or disconnects.
+     */
+    private void handle(Socket socket) {
+        try(Socket client = socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                    StandardCharsets.UTF_8));
+            OutputStream out = new BufferedOutputStream(client.getOutputStream(), OUTPUT_BUFFER_SIZE)) {
+            client.setTcpNoDelay(true);
+            String request;
+            while((request = in.readLine()) != null) {
+                String[] words = SPACES.split(request.trim());
+                if(words[0].equals(QUIT))
+                    break;
+                long start = System.nanoTime();
+                answer(words, out);
+                //only real requests are timed, so that a client can not fill the metrics with made up names
+                if(REQUESTS.contains(words[0]))
+                    fileSystem.getExt2File().getMetrics().recordCommand(words[0], System.nanoTime() - start);
+                if(!in.ready())
+                    out.flush();
+            }
+        }
+        catch (IOException e) {
+            //the client went away, which only ends its own connection
+        }
+    }
+
+    /**
+     *Writes the response to a single request.
+     */
+    private void answer(String[] words, OutputStream out) throws IOException {
+        if(words[0].equals(Command.STATS)) {
+            if(words.length == 1)
+                text(out, Command.getStats(fileSystem.getExt2File()));
+            else if(words.length == 2 && words[1].equals("reset")) {
+                fileSystem.getExt2File().getMetrics().reset();
+                text(out, "");
+            }
+            else
+                error(out, "usage: stats [reset]");
+            return;
+        }
+        if(words.length < 2) {
+            error(out, "usage: ls|stat|cat PATH, or stats [reset]");
+            return;
+        }
+        //everything that can fail is done before the "OK" header, after which the response can only be cut short
+        Inode inode;
+        CharSequence response = null;
+        long offset = 0, length = 0;
+        try {
+            inode = fileSystem.lookup(words[1]);
+            switch (words[0]) {
+                case Command.LS:
+                    if(!inode.isDirectory())
+                        throw new NotDirectoryException(words[1]);
+                    StringBuilder names = new StringBuilder();
+                    for(String name : fileSystem.list(inode))
+                        names.append(name).append('\n');
+                    response = names;
+                    break;
+                case STAT:
+                    response = stat(inode);
+                    break;
+                case Command.CAT:
+                    //only a regular file has blocks to read
+                    if(inode.getFileType() != Constants.IFREG) {
+                        error(out, (inode.isDirectory() ? "Is a directory: " : "Not a regular file: ") + words[1]);
+                        return;
+                    }
+                    offset = words.length > 2 ? Long.parseLong(words[2]) : 0;
+                    length = words.length > 3 ? Long.parseLong(words[3]) : Long.MAX_VALUE;
+                    if(offset < 0 || length < 0)
+                        throw new NumberFormatException("negative offset or length");
+                    length = Math.max(0, Math.min(length, inode.getSize() - offset));
+                    break;
+                default:
+                    error(out, words[0] + ": command not found");
+                    return;
+            }
+        }
+        catch (NoSuchFileException e) {
+            error(out, "No such file or directory: " + e.getMessage());
+            return;
+        }
+        catch (NotDirectoryException e) {
+            error(out, "Not a directory: " + e.getMessage());
+            return;
+        }
+        catch (NumberFormatException e) {
+            error(out, "Invalid number: " + e.getMessage());
+            return;
+        }
+        catch (IOException e) {
+            //a corrupted directory or block pointer, which only fails this request
+            error(out, "Input/output error: " + e.getMessage());
+            return;
+        }
+
+        if(response != null)
+            text(out, response);
+        else {
+            header(out, length);
+            FileInfo.writeFileData(inode, fileSystem.getExt2File(), Channels.newChannel(out), offset, length);
+        }
+    }
+
+    /**
+     *@return the fields of an inode, one "name: value" per line
+     */
+    private static String stat(Inode inode) {
+        return "inode: " + inode.getInodeNumber() + "\n" +
+                "mode: " + inode.readPermissions() + "\n" +
+                "links: " + inode.getHardLinks() + "\n" +
+                "uid: " + inode.getUidNumber() + "\n" +
+                "gid: " + inode.getGidNumber() + "\n" +
+                "size: " + inode.getSize() + "\n" +
+                "atime: " + inode.getAccessTime() + "\n" +
+                "ctime: " + inode.getCreationTime() + "\n" +
+                "mtime: " + inode.getModificationTime() + "\n";
+    }
+
+    private static void header(OutputStream out, long length) throws IOException {
+        out.write(("OK " + length + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void text(OutputStream out, CharSequence text) throws IOException {
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        header(out, body.length);
+        out.write(body);
+    }
+
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(("ERR " + message.replace('\n', ' ') + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     *Stops accepting clients. The connections that are open are answered until they end.
+     *@throws IOException if the server socket could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdown();
+    }
+}
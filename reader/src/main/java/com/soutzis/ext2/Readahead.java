@@ -0,0 +1,184 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *This class reads ahead of the sequential reads of files, on background threads, so that the disk (or the network
+ *that the image is on) is busy fetching the next blocks of a file while the blocks before them are being written.
+ *Every file that is read keeps the state of its stream (see Inode.getReadaheadStream()): where the last read of it
+ *ended, how far ahead of it has been fetched, and the size of the next window to fetch. A read that starts where
+ *the last one ended (or further on, within the range that was already fetched) is sequential. Once a sequential
+ *reader gets within half a window of the end of the fetched range, the next window is fetched, and the window is
+ *doubled, from READAHEAD_MIN_WINDOW up to the maximum window. A read anywhere else is random: it is not read ahead
+ *of, and the window shrinks back to its smallest size.
+ *A window is fetched by mapping its logical blocks with a BlockMap, which brings its pointer blocks into the
+ *metadata cache, and by reading its blocks with Ext2File.prefetch(), which only brings them into the page cache of
+ *the operating system. Runs of blocks that are close together on the volume are fetched with a single read.
+ *The file data is never held on the Java heap, so the readers still copy it with transferTo or views of the mapped
+ *volume, and the memory that readahead takes is bounded by the window size of the streams (in the page cache) and
+ *by the length of the queue of windows. If the queue is full, a window is dropped rather than waited for, as
+ *readahead is only a hint.
+ *@author Petros Soutzis
+ */
+class Readahead {
+    //The windows of every disk are fetched by the same few threads, which are daemons so they never keep the
+    //program running
+    private static final int WORKERS = 2;
+    private static final int QUEUE_SIZE = 16;
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(WORKERS, WORKERS, 0,
+            TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), task -> {
+                Thread thread = new Thread(task, "ext2-readahead");
+                thread.setDaemon(true);
+                return thread;
+            }, (task, executor) -> ((Window) task).drop());
+    //Runs of blocks that are at most this many bytes apart on the volume are fetched with a single read
+    private static final int MAX_GAP = 32 * 1024;
+    //The buffer that each worker reads the runs of a volume that is not memory-mapped into, and drops
+    private static final ThreadLocal<ByteBuffer> SCRATCH =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(Constants.DEFAULT_MAX_IO_SIZE));
+
+    private final Ext2File ext2;
+    private volatile int maxWindow = Constants.READAHEAD_MAX_WINDOW;
+    private final LongAdder windows = new LongAdder(), dropped = new LongAdder(), failed = new LongAdder();
+
+    /**
+     *Constructor of the Readahead class
+     *@param ext2 the disk that the files are read from
+     */
+    Readahead(Ext2File ext2) {
+        this.ext2 = ext2;
+    }
+
+    /**
+     *The readahead state of a file, which is only used while holding its lock.
+     */
+    static class Stream {
+        private long next; //the offset where the last read ended
+        private long ahead; //the offset up to which the file has been fetched (or is being fetched)
+        private int window = Constants.READAHEAD_MIN_WINDOW; //the size of the next window to fetch
+    }
+
+    /**
+     *Tells the readahead that a range of a file is about to be read, which fetches the next window of the file in
+     *the background if the read is sequential and has got close to the end of the range that was fetched.
+     *@param inode the inode of the file
+     *@param offset the offset within the file of the first byte that will be read
+     *@param length the number of bytes that will be read
+     */
+    void access(Inode inode, long offset, long length) {
+        int max = maxWindow;
+        if(max <= 0)
+            return;
+
+        Stream stream = inode.getReadaheadStream();
+        long end = offset + length, from, to;
+        synchronized (stream) {
+            boolean sequential = offset >= stream.next && offset <= Math.max(stream.next, stream.ahead);
+            stream.next = end;
+            if(!sequential) {
+                stream.window = Constants.READAHEAD_MIN_WINDOW;
+                stream.ahead = end;
+                return;
+            }
+            //the window is only fetched when the reader gets within half a window of the end of the last one
+            if(end + stream.window / 2 < stream.ahead)
+                return;
+            if(stream.ahead > 0)
+                stream.window = Math.min(max, stream.window * 2);
+            from = Math.max(stream.ahead, end);
+            to = Math.min(inode.getSize(), from + stream.window);
+            stream.ahead = Math.max(stream.ahead, to);
+        }
+        if(from < to)
+            EXECUTOR.execute(new Window(inode, from, to));
+    }
+
+    /**
+     *@param maxWindow the largest number of bytes that are fetched ahead of a sequential reader at once, or 0 to
+     *turn readahead off
+     */
+    void setMaxWindow(int maxWindow) {
+        this.maxWindow = maxWindow;
+    }
+
+    /**
+     *@return the largest number of bytes that are fetched ahead of a sequential reader at once (0 if readahead is
+     *off)
+     */
+    int getMaxWindow() {
+        return maxWindow;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("readahead: %d windows fetched, %d dropped, %d failed, windows of up to %d bytes",
+                windows.sum(), dropped.sum(), failed.sum(), maxWindow);
+    }
+
+    /**
+     *The task that fetches one window of a file.
+     */
+    private class Window implements Runnable {
+        private final Inode inode;
+        private final long from, to;
+
+        private Window(Inode inode, long from, long to) {
+            this.inode = inode;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run() {
+            try {
+                fetch();
+                windows.increment();
+            }
+            catch (IOException | RuntimeException e) {
+                //the range will fail again, and be reported, when it is really read
+                failed.increment();
+            }
+        }
+
+        /**
+         *Fetches the blocks of the window in as few reads as possible (of up to the largest I/O size each), in the
+         *order of the file. Blocks that are contiguous on the volume are read together, and so are blocks that are
+         *only a small gap apart, as reading the gap costs less than another read.
+         */
+        private void fetch() throws IOException {
+            //a map of its own, so that the last path of the inode's map is not lost to the readers
+            BlockMap map = new BlockMap(inode.getBlockPointers());
+            ByteBuffer scratch = SCRATCH.get();
+            int blockSize = ext2.getBlockSize();
+            long maxBlocks = Math.max(1, Math.min(ext2.getMaxIoSize(), scratch.capacity()) / blockSize);
+            long maxGap = MAX_GAP / blockSize;
+            //the physical blocks from runStart up to (but not including) runEnd are read together
+            long runStart = 0, runEnd = 0;
+            for(long block = from / blockSize, last = (to - 1) / blockSize; block <= last; block++) {
+                long physical = map.map(block, ext2);
+                if(physical == 0)
+                    continue;
+                if(runEnd > 0 && physical >= runEnd && physical - runEnd <= maxGap
+                        && physical + 1 - runStart <= maxBlocks) {
+                    runEnd = physical + 1;
+                    continue;
+                }
+                if(runEnd > 0)
+                    ext2.prefetch(runStart * blockSize, (runEnd - runStart) * blockSize, scratch);
+                runStart = physical;
+                runEnd = physical + 1;
+            }
+            if(runEnd > 0)
+                ext2.prefetch(runStart * blockSize, (runEnd - runStart) * blockSize, scratch);
+        }
+
+        private void drop() {
+            dropped.increment();
+        }
+    }
+}
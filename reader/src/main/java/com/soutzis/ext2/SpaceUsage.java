@@ -0,0 +1,215 @@
+package com.soutzis.ext2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *This class implements the "df" command, which reports the used and free blocks and inodes of the volume, as they
+ *are counted from the block and inode bitmaps of every block group. The bitmaps are read in parallel on a ForkJoin
+ *pool, like the inode tables of the "scan" command, and their bits are counted 64 at a time with Long.bitCount.
+ *The counts of every group are compared with the free block and free inode counts of its group descriptor, and the
+ *totals with the counts of the superblock, and every counter that disagrees with the bitmaps is reported (these
+ *are the counters that e2fsck would correct). The bitmaps are read around the block cache, so they do not push out
+ *any cached metadata.
+ *@author Petros Soutzis
+ */
+class SpaceUsage {
+    //The work is bound by I/O rather than by the CPU, so there are more workers than CPUs, but never unboundedly many
+    private static final int WORKERS = Math.min(32, Runtime.getRuntime().availableProcessors() * 2);
+    private static final ForkJoinPool POOL = new ForkJoinPool(WORKERS);
+
+    private final Superblock superblock;
+    private final GroupDescriptor groupDescriptor;
+    //The blocks and inodes of each group that are in use, as counted from its bitmaps
+    private final int[] usedBlocks, usedInodes;
+    private long millis; //the time that reading and counting all the bitmaps took
+
+    private SpaceUsage(Superblock superblock, GroupDescriptor groupDescriptor) {
+        this.superblock = superblock;
+        this.groupDescriptor = groupDescriptor;
+        usedBlocks = new int[groupDescriptor.getGroupCount()];
+        usedInodes = new int[groupDescriptor.getGroupCount()];
+    }
+
+    /**
+     *Counts the used blocks and inodes of every block group from its bitmaps, in parallel.
+     *@param ext2 The disk
+     *@param superblock The superblock
+     *@param groupDescriptor The group descriptor
+     *@throws IOException if a bitmap could not be read
+     *@return the counts of every block group
+     */
+    static SpaceUsage scan(Ext2File ext2, Superblock superblock, GroupDescriptor groupDescriptor) throws IOException {
+        long start = System.nanoTime();
+        SpaceUsage usage = new SpaceUsage(superblock, groupDescriptor);
+        try {
+            POOL.invoke(new GroupTask(0, groupDescriptor.getGroupCount(), usage, ext2));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        usage.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        return usage;
+    }
+
+    /**
+     *Counts the used blocks and inodes of a single block group.
+     */
+    private void scanGroup(int group, Ext2File ext2) throws IOException {
+        int blockSize = superblock.getBlockSize();
+        int blocks = getGroupBlocks(group), inodes = getGroupInodes(group);
+        usedBlocks[group] = countBits(ext2.readBuffer(groupDescriptor.getBlockBitmap(group) * blockSize,
+                (blocks + 7) / 8, Metrics.BITMAP), blocks);
+        usedInodes[group] = countBits(ext2.readBuffer(groupDescriptor.getInodeBitmap(group) * blockSize,
+                (inodes + 7) / 8, Metrics.BITMAP), inodes);
+    }
+
+    /**
+     *@param bitmap a little-endian view of a bitmap, starting at position 0
+     *@param bits the number of bits of the bitmap to count (the bits past them pad the last group's bitmap)
+     *@return the number of the bits that are set
+     */
+    static int countBits(ByteBuffer bitmap, int bits) {
+        int count = 0, words = bits >>> 6;
+        //bit n of the bitmap is bit (n % 8) of byte (n / 8), so in a little-endian long it is bit (n % 64)
+        for(int i = 0; i < words; i++)
+            count += Long.bitCount(bitmap.getLong(i << 3));
+        for(int bit = words << 6; bit < bits; bit++) {
+            if((bitmap.get(bit >>> 3) & (1 << (bit & 7))) != 0)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     *@return the number of blocks in a group, which is fewer than blocksPerGroup for the last group, if the block
+     *count is not a multiple of it
+     */
+    private int getGroupBlocks(int group) {
+        long blocks = superblock.getBlockCount() - superblock.getFirstDataBlock()
+                - (long) group * superblock.getBlocksPerGroup();
+        return (int) Math.min(superblock.getBlocksPerGroup(), blocks);
+    }
+
+    /**
+     *@return the number of inodes in a group (see getGroupBlocks())
+     */
+    private int getGroupInodes(int group) {
+        long inodes = superblock.getInodeCount() - (long) group * superblock.getInodesPerGroup();
+        return (int) Math.min(superblock.getInodesPerGroup(), inodes);
+    }
+
+    /**
+     *Prints the usage of the volume like GNU df does (with the sizes in 1K blocks), followed by the free counts of
+     *the bitmaps, the group descriptors and the superblock, and every group whose counts disagree.
+     *@param name the name to print in the Filesystem column
+     *@param groups if true, the usage of every block group is printed as well
+     */
+    void print(String name, boolean groups) {
+        int blockSize = superblock.getBlockSize();
+        long freeBlocks = 0, freeInodes = 0, descriptorFreeBlocks = 0, descriptorFreeInodes = 0;
+        for(int group = 0; group < usedBlocks.length; group++) {
+            freeBlocks += getGroupBlocks(group) - usedBlocks[group];
+            freeInodes += getGroupInodes(group) - usedInodes[group];
+            descriptorFreeBlocks += groupDescriptor.getFreeBlocksCount(group);
+            descriptorFreeInodes += groupDescriptor.getFreeInodesCount(group);
+        }
+        long blocks = superblock.getBlockCount(), inodes = superblock.getInodeCount();
+        long usedBlockCount = blocks - freeBlocks;
+        long availableBlocks = Math.max(0, freeBlocks - superblock.getReservedBlockCount());
+
+        System.out.format("%-16s %12s %12s %12s %5s %12s %12s %12s %5s%n", "Filesystem", "1K-blocks", "Used",
+                "Available", "Use%", "Inodes", "IUsed", "IFree", "IUse%");
+        System.out.format("%-16s %12d %12d %12d %5s %12d %12d %12d %5s%n", name.isEmpty() ? "-" : name,
+                blocks * blockSize / 1024, usedBlockCount * blockSize / 1024, availableBlocks * blockSize / 1024,
+                percent(usedBlockCount, usedBlockCount + availableBlocks), inodes, inodes - freeInodes, freeInodes,
+                percent(inodes - freeInodes, inodes));
+
+        System.out.println("\n" + usedBlocks.length + " block groups, whose bitmaps were counted in " + millis +
+                " ms");
+        System.out.format("%-12s %14s %18s %14s%n", "", "bitmaps", "group descriptors", "superblock");
+        System.out.format("%-12s %14d %18d %14d%s%n", "free blocks", freeBlocks, descriptorFreeBlocks,
+                superblock.getFreeBlockCount(),
+                mismatch(freeBlocks, descriptorFreeBlocks, superblock.getFreeBlockCount()));
+        System.out.format("%-12s %14d %18d %14d%s%n", "free inodes", freeInodes, descriptorFreeInodes,
+                superblock.getFreeInodeCount(),
+                mismatch(freeInodes, descriptorFreeInodes, superblock.getFreeInodeCount()));
+
+        if(groups)
+            System.out.format("%n%8s %10s %10s %10s %10s %10s %10s %10s %10s%n", "Group", "Blocks", "Used", "Free",
+                    "GD free", "Inodes", "Used", "Free", "GD free");
+        int mismatches = 0;
+        for(int group = 0; group < usedBlocks.length; group++) {
+            int groupFreeBlocks = getGroupBlocks(group) - usedBlocks[group];
+            int groupFreeInodes = getGroupInodes(group) - usedInodes[group];
+            boolean differs = groupFreeBlocks != groupDescriptor.getFreeBlocksCount(group)
+                    || groupFreeInodes != groupDescriptor.getFreeInodesCount(group);
+            if(differs && !groups && mismatches++ == 0) {
+                System.out.println("\nBlock groups whose descriptor disagrees with their bitmaps:");
+                System.out.format("%8s %10s %10s %10s %10s %10s %10s %10s %10s%n", "Group", "Blocks", "Used", "Free",
+                        "GD free", "Inodes", "Used", "Free", "GD free");
+            }
+            if(groups || differs)
+                System.out.format("%8d %10d %10d %10d %10d %10d %10d %10d %10d%s%n", group, getGroupBlocks(group),
+                        usedBlocks[group], groupFreeBlocks, groupDescriptor.getFreeBlocksCount(group),
+                        getGroupInodes(group), usedInodes[group], groupFreeInodes,
+                        groupDescriptor.getFreeInodesCount(group), differs ? "  MISMATCH" : "");
+        }
+    }
+
+    /**
+     *@return the percentage of part in whole, rounded up (as df does), or "-" if whole is 0
+     */
+    private static String percent(long part, long whole) {
+        return whole == 0 ? "-" : ((part * 100 + whole - 1) / whole) + "%";
+    }
+
+    /**
+     *@return a flag that is printed after a row of counts, if the descriptors or the superblock disagree with the
+     *bitmaps
+     */
+    private static String mismatch(long bitmaps, long descriptors, long superblock) {
+        if(bitmaps == descriptors && bitmaps == superblock)
+            return "";
+        return bitmaps != descriptors ? "  MISMATCH" : "  MISMATCH (superblock)";
+    }
+
+    /**
+     *The task that counts the bitmaps of a range of block groups, by splitting it in half until a single group is
+     *left.
+     */
+    private static class GroupTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+        private final SpaceUsage usage;
+        private final Ext2File ext2;
+
+        private GroupTask(int from, int to, SpaceUsage usage, Ext2File ext2) {
+            this.from = from;
+            this.to = to;
+            this.usage = usage;
+            this.ext2 = ext2;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GroupTask(from, middle, usage, ext2), new GroupTask(middle, to, usage, ext2));
+                return;
+            }
+            try {
+                if(from < to)
+                    usage.scanGroup(from, ext2);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
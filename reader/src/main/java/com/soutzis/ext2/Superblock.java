@@ -0,0 +1,256 @@
+package com.soutzis.ext2;
+
+import java.nio.*;
+
+/**
+ *This class reads the data of an ext2 filesystem's SuperBlock
+ *@author Petros Soutzis, 2017-19
+ */
+
+public class Superblock {
+    //the magic number which should always be 0xef53 for an ext2 filesystem
+    private short sMagic;
+    //Total number of inodes in filesystem (an unsigned 32-bit value)
+    private long inodeCount;
+    //Total number of blocks in filesystem (an unsigned 32-bit value)
+    private long blockCount;
+    //Number of blocks that are reserved for the superuser, and the numbers of free blocks and free inodes
+    //(unsigned 32-bit values)
+    private long reservedBlockCount, freeBlockCount, freeInodeCount;
+    //The block that holds the Superblock (1 for 1KiB blocks, 0 otherwise)
+    private int firstDataBlock;
+    //Size of each block in bytes
+    private int blockSize;
+    //Number of blocks per Group
+    private int blocksPerGroup;
+    //Number of inodes per Group
+    private int inodesPerGroup;
+    //Size of each inode in bytes
+    private int sInodeSize;
+    //The compatible features of the filesystem, e.g. FEATURE_COMPAT_DIR_INDEX
+    private int featureCompat;
+    //The flags of the filesystem, e.g. whether the directory hash is signed or unsigned
+    private int flags;
+    //The seed of the hash of the names in indexed directories
+    private int[] hashSeed;
+    //Volume label (disk name)
+    private String volumeName;
+    //ByteBuffer, where the bytes to be readBytes, will be parsed to
+    private ByteBuffer buffer;
+
+
+    /**
+     *Constructor of the Superblock class
+     *@param bytes is the byte array that contains the Superblock's data
+     */
+    public Superblock(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     *Constructor of the Superblock class
+     *@param buffer is a view of the Superblock's data, starting at position 0
+     */
+    public Superblock(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        read(); //init
+    }
+
+    /**
+     *This method will readBytes all the data that is contained in the Superblock,
+     *from the buffer in which the byte array was parsed
+     */
+    private void read() {
+        sMagic = buffer.getShort(Constants.S_MAGIC_OFFSET);
+        inodeCount = Integer.toUnsignedLong(buffer.getInt(Constants.S_INODE_COUNT_OFFSET));
+        blockCount = Integer.toUnsignedLong(buffer.getInt(Constants.S_BLOCK_COUNT_OFFSET));
+        reservedBlockCount = Integer.toUnsignedLong(buffer.getInt(Constants.S_R_BLOCKS_COUNT_OFFSET));
+        freeBlockCount = Integer.toUnsignedLong(buffer.getInt(Constants.S_FREE_BLOCKS_COUNT_OFFSET));
+        freeInodeCount = Integer.toUnsignedLong(buffer.getInt(Constants.S_FREE_INODES_COUNT_OFFSET));
+        firstDataBlock = buffer.getInt(Constants.S_FIRST_DATA_BLOCK_OFFSET);
+        blockSize = Constants.MIN_BLOCK_SIZE << buffer.getInt(Constants.S_LOG_BLOCK_SIZE_OFFSET);
+        blocksPerGroup = buffer.getInt(Constants.S_BLOCKS_PER_GROUP_OFFSET);
+        inodesPerGroup = buffer.getInt(Constants.S_INODES_PER_GROUP_OFFSET);
+        //s_inode_size is 16 bits long, and is followed by the number of the group that holds this copy
+        sInodeSize = buffer.getShort(Constants.S_INODE_SIZE_OFFSET) & 0xFFFF;
+        //the fields after s_inode_size are 0 in a revision 0 superblock, which has no features
+        featureCompat = buffer.getInt(Constants.S_FEATURE_COMPAT_OFFSET);
+        flags = buffer.getInt(Constants.S_FLAGS_OFFSET);
+        hashSeed = new int[4];
+        for(int i = 0; i < hashSeed.length; i++)
+            hashSeed[i] = buffer.getInt(Constants.S_HASH_SEED_OFFSET + i * Constants.BYTE_LENGTH);
+
+        //Get the Volume name
+        byte[] char_bytes = new byte[Constants.S_FILESYSTEM_NAME_LENGTH];
+
+        for(int i = 0; i< Constants.S_FILESYSTEM_NAME_LENGTH; i++) {
+            //Get the characters 1 by 1
+            char_bytes[i]=buffer.get(Constants.S_FILESYSTEM_NAME_OFFSET + i);
+        }
+
+        //converting the bytes that contain the name to a String
+        volumeName = new String(char_bytes);
+    }
+
+    /**
+     *@return The total size of each Inode
+     */
+    int getInodeSize() {
+
+        return sInodeSize;
+    }
+
+    /**
+     *@return The total number of inodes in filesystem
+     */
+    long getInodeCount() {
+
+        return inodeCount;
+    }
+
+    /**
+     *@return The total number of inodes in every block group
+     */
+    int getInodesPerGroup() {
+
+        return inodesPerGroup;
+    }
+
+    /**
+     *@return The total number of blocks in filesystem
+     */
+    long getBlockCount() {
+
+        return blockCount;
+    }
+
+    /**
+     *@return The number of blocks that are reserved for the superuser
+     */
+    long getReservedBlockCount() {
+
+        return reservedBlockCount;
+    }
+
+    /**
+     *@return The number of free blocks, as counted by the superblock
+     */
+    long getFreeBlockCount() {
+
+        return freeBlockCount;
+    }
+
+    /**
+     *@return The number of free inodes, as counted by the superblock
+     */
+    long getFreeInodeCount() {
+
+        return freeInodeCount;
+    }
+
+    /**
+     *@return The block that holds the Superblock, which is the first block of the first block group
+     */
+    int getFirstDataBlock() {
+
+        return firstDataBlock;
+    }
+
+    /**
+     *@return The size of each block in bytes
+     */
+    int getBlockSize() {
+
+        return blockSize;
+    }
+
+    /**
+     *@return The byte offset of the Group Descriptor table, which starts at the block after the Superblock's
+     */
+    long getGroupDescriptorOffset() {
+
+        return (long)(firstDataBlock + 1) * blockSize;
+    }
+
+    /**
+     *@return The total number of blocks in every block group
+     */
+    int getBlocksPerGroup() {
+
+        return blocksPerGroup;
+    }
+
+    /**
+     *@return The compatible features of the filesystem
+     */
+    int getFeatureCompat() {
+
+        return featureCompat;
+    }
+
+    /**
+     *@return The flags of the filesystem
+     */
+    int getFlags() {
+
+        return flags;
+    }
+
+    /**
+     *@return The seed of the hash of the names in indexed directories (all 0 if the default seed is used)
+     */
+    int[] getHashSeed() {
+
+        return hashSeed;
+    }
+
+    /**
+     *@return The disk's name
+     */
+    String getVolumeName() {
+
+        return volumeName;
+    }
+
+    String shortToHex(Short s){
+        String transformed = Integer.toHexString(s-0xffff0000); //remove first 16 bits, to get the value of short 's'
+        return "0x" + transformed;
+    }
+
+    /**
+     *@param num_of_blocks the total number of blocks in the filesystem
+     *@param blocks_per_group the total number of blocks in every block group
+     *@return The total number of block groups that the volume has
+     */
+    int getBlockGroupCount(long num_of_blocks, int blocks_per_group) {
+        //The blocks before the first data block (the boot block, with 1KiB blocks) are not in any group
+        num_of_blocks -= firstDataBlock;
+        //Get the total number of blocks, divided with the number of blocks per group
+        long count = num_of_blocks/blocks_per_group;
+
+        //If the remainder of the above division is not 0, then add "1" to the count.
+        if((num_of_blocks % blocks_per_group) != 0)
+            count++;
+
+        return (int) count;
+    }
+
+    void printGenericData(int inodeSize, int blockGroupCount){
+        boolean correctMagicNum = Constants.MAGIC_NUM_VALUE == sMagic;
+        System.out.println("VOLUME NAME: " + volumeName);
+        System.out.print("Magic number is: " + shortToHex(sMagic));
+        if(correctMagicNum)
+            System.out.println(" -> Magic number is OK.");
+        else
+            System.out.println(" -> Magic number is INVALID, possible corruption of files.");
+        System.out.println("Total number of inodes is: " + inodeCount);
+        System.out.println("Total number of inodes per group is: " + inodesPerGroup);
+        System.out.println("Total size of inodes is: " + inodeSize);
+        System.out.println("Block size is: " + blockSize);
+        System.out.println("Total number of blocks is: " + blockCount);
+        System.out.println("Total number of blocks per group is: " + blocksPerGroup);
+        System.out.println("Total number of block groups is: " + blockGroupCount);
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.soutzis.ext2;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+*This class provides a way to open a file, using Random Access and readBytes-only attribute. Which means any point of
+*the file can be readBytes and this doesn't have to be done sequentially.
+*By default the image is also memory-mapped in segments, so that blocks can be handed out as ByteBuffer views
+*without copying. If the image cannot be mapped, the Random Access File is used on its own.
+*@author Petros Soutzis 2017-19
+*/
+
+public class Volume implements Closeable {
+    //Each mapped segment is 1 GiB (2^30 bytes), so that a segment index and offset can be found with shifts
+    static final int SEGMENT_SHIFT = 30;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private String filename;
+    private volatile RandomAccessFile raf; //replaced by reopen() if an interrupted read closed its channel
+    private boolean closed; //true once close() was called, after which the file is never reopened
+    private MappedByteBuffer[] segments; //null if the volume is not memory-mapped
+    private long size;
+
+    /**
+    *Constructor of the Volume Class. The image will be memory-mapped if possible.
+    *@param filename is the name of the file that will be accessed randomly
+    */
+    public Volume(String filename) {
+        this(filename, true);
+    }
+
+    /**
+    *Constructor of the Volume Class. If the file can not be opened, the program exits with a message.
+    *@param filename is the name of the file that will be accessed randomly
+    *@param mapped if true, the file will be memory-mapped, otherwise only the Random Access File will be used
+    */
+    public Volume(String filename, boolean mapped) {
+		try {
+		    open(filename, mapped);
+		}
+		catch(IOException e) {
+            System.out.println("\nSomething went wrong, could not find file.\n" +
+                    "Please check if a file called \""+filename+"\" exists, or if the path is correct.");
+            System.exit(0);
+		}
+    }
+
+    /**
+    *Constructor of the Volume Class, for use as a library, which reports a file that can not be opened to the caller
+    *@param path is the path of the file that will be accessed randomly
+    *@param mapped if true, the file will be memory-mapped, otherwise only the Random Access File will be used
+    *@throws IOException if the file can not be opened
+    */
+    public Volume(Path path, boolean mapped) throws IOException {
+        open(path.toString(), mapped);
+    }
+
+    private void open(String filename, boolean mapped) throws IOException {
+        this.filename = filename;
+        raf = new RandomAccessFile(filename,"r");
+        size = raf.length();
+        if(mapped)
+            map();
+    }
+
+    /**
+     *Maps the whole image into memory, one segment at a time. If any segment can not be mapped (e.g. not enough
+     *virtual address space), then the mapping is dropped and the Random Access File will be used as a fallback.
+     */
+    private void map() {
+        int segmentCount = (int)((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] mappedSegments = new MappedByteBuffer[segmentCount];
+        FileChannel channel = raf.getChannel();
+
+        try {
+            for (int i = 0; i < segmentCount; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                mappedSegments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size-start));
+            }
+            segments = mappedSegments;
+        }
+        catch (IOException e) {
+            segments = null;
+        }
+    }
+
+    /**
+    *Accessor method for the Random Access File
+    *@return the Randomly Accessible file
+    */
+    RandomAccessFile getRandomAccessFile() {
+
+        return raf;
+    }
+
+    /**
+     *Opens the file again, after a thread was interrupted while it was reading from its channel, which closes the
+     *channel for every thread. Only the first thread to find the channel closed opens the file again, and the
+     *others get the channel that it opened.
+     *@param failed the channel that was found closed
+     *@throws ClosedChannelException if the volume itself was closed with close()
+     *@throws IOException if the file could not be opened again
+     *@return the channel to read the file through from now on
+     */
+    synchronized FileChannel reopen(FileChannel failed) throws IOException {
+        if(closed)
+            throw new ClosedChannelException();
+        if(raf.getChannel() == failed)
+            raf = new RandomAccessFile(filename, "r");
+        return raf.getChannel();
+    }
+
+    /**
+     *@return the memory-mapped segments of the image, or null if the image is not memory-mapped
+     */
+    MappedByteBuffer[] getSegments() {
+
+        return segments;
+    }
+
+    /**
+     *@return true if the image is memory-mapped
+     */
+    boolean isMapped() {
+
+        return segments != null;
+    }
+
+    /**
+     *@return the size of the image in bytes
+     */
+    long getSize() {
+
+        return size;
+    }
+
+    /**
+     *Closes the image. The mapped segments (if any) stay valid until they are garbage collected.
+     *@throws IOException if the file could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        raf.close();
+    }
+}
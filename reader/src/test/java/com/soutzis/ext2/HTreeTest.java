@@ -0,0 +1,167 @@
+package com.soutzis.ext2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *Tests of the directory hashes against the values that e2fsprogs computes, and of lookups in the hash tree indexes
+ *that ImageGenerator writes, including a hash whose names are split between two leaves.
+ *@author Petros Soutzis
+ */
+class HTreeTest {
+    private static final int[] DEFAULT_SEED = {0x67452301, 0xefcdab89, 0x98badcfe, 0x10325476};
+    private static final int[] SEED = {0x01234567, 0x89abcdef, 0xfedcba98, 0x76543210};
+    private static final String[] NAMES = {"", "a", "hello", "lost+found",
+            "a-much-longer-file-name-that-spans-more-than-one-block-of-the-hash.txt", "中文.txt"};
+    //ext2fs_dirhash() of libext2fs 1.47.0, for each name: by hash version, with the default seed and then with SEED
+    private static final int[][][] EXPECTED = {
+            {{0x2547fc5a, 0xe74b53e2, 0x32252546, 0x5e2aba24, 0x2882feb4, 0xd8a13826},
+             {0x2547fc5a, 0xe74b53e2, 0x32252546, 0x5e2aba24, 0x2882feb4, 0xd8a13826}},
+            {{0xefcdab88, 0xd5fa7d7a, 0x1746da32, 0x591de422, 0xce48c60a, 0xa059010e},
+             {0x89abcdee, 0xdeaa09f8, 0x273316b8, 0xf489b8ec, 0x9c6a3788, 0x4c756476}},
+            {{0x67452300, 0x6d0ea4c0, 0x6f5bb1a8, 0x2dbf9e80, 0xe33f95b6, 0x2f8b528e},
+             {0x01234566, 0xa444ad1e, 0x0cbb3f34, 0xbb0625d4, 0xf13274a6, 0xb58f87da}},
+            {{0x2547fc5a, 0xe74b53e2, 0x32252546, 0x5e2aba24, 0x2882feb4, 0x5a084be6},
+             {0x2547fc5a, 0xe74b53e2, 0x32252546, 0x5e2aba24, 0x2882feb4, 0x5a084be6}},
+            {{0xefcdab88, 0xd5fa7d7a, 0x1746da32, 0x591de422, 0xce48c60a, 0x3e2b9fb8},
+             {0x89abcdee, 0xdeaa09f8, 0x273316b8, 0xf489b8ec, 0x9c6a3788, 0x6d4e0936}},
+            {{0x67452300, 0x6d0ea4c0, 0x6f5bb1a8, 0x2dbf9e80, 0xe33f95b6, 0x0b9f8ca4},
+             {0x01234566, 0xa444ad1e, 0x0cbb3f34, 0xbb0625d4, 0xf13274a6, 0xa6cb1464}}
+    };
+    //12 bytes, so that every entry takes up 20 bytes and a 1 KiB leaf holds 51 of them
+    private static final String NAME_FORMAT = "name%08d";
+    private static final int ENTRIES_PER_LEAF = 51;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void hashesMatchE2fsprogs() {
+        for(int version = HTree.LEGACY; version <= HTree.TEA_UNSIGNED; version++) {
+            for(int name = 0; name < NAMES.length; name++) {
+                byte[] bytes = NAMES[name].getBytes(StandardCharsets.UTF_8);
+                assertEquals(EXPECTED[version][0][name], HTree.hash(bytes, version, DEFAULT_SEED),
+                        "version " + version + ", default seed, \"" + NAMES[name] + "\"");
+                assertEquals(EXPECTED[version][1][name], HTree.hash(bytes, version, SEED),
+                        "version " + version + ", seed, \"" + NAMES[name] + "\"");
+            }
+        }
+    }
+
+    @Test
+    void findsEveryNameOfALargeDirectory() throws IOException {
+        Path image = directory.resolve("large.img");
+        int count = 3000;
+        int[] inodes = new int[count];
+        try(ImageGenerator generator = new ImageGenerator(image.toString(), 16 << 20, 1024, 0, 4096, 128)) {
+            generator.setHashIndexed(true);
+            int parent = generator.mkdir(Constants.ROOT_INODE_OFFSET, "large");
+            for(int i = 0; i < count; i++)
+                inodes[i] = generator.createFile(parent, "file-" + i, 0);
+        }
+
+        try(Ext2FileSystem fileSystem = new Ext2FileSystem(image.toString())) {
+            Inode large = fileSystem.lookup("/large");
+            assertTrue(large.isHashIndexed());
+            for(int i = 0; i < count; i++)
+                assertEquals(inodes[i], lookup(fileSystem, "file-" + i, large));
+            //the names that are not there are not looked for in any other way
+            for(int i = count; i < count + 100; i++)
+                assertEquals(0, lookup(fileSystem, "file-" + i, large));
+            assertEquals(0, lookup(fileSystem, "file-", large));
+            assertEquals(inodes[0], fileSystem.lookup("/large/file-0").getInodeNumber());
+        }
+    }
+
+    @Test
+    void findsTheNamesOfAHashThatIsSplitBetweenLeaves() throws IOException {
+        Path image = directory.resolve("collision.img");
+        try(ImageGenerator generator = new ImageGenerator(image.toString(), 16 << 20, 1024, 0, 4096, 128)) {
+            generator.setHashIndexed(true);
+            int[] seed = generator.getHashSeed();
+
+            //two names with the same hash, high enough that there are plenty of names with lower hashes
+            Map<Integer, Integer> seen = new HashMap<>();
+            int first = -1, second = -1;
+            for(int i = 0; second < 0; i++) {
+                int hash = hash(i, seed);
+                Integer other = seen.putIfAbsent(hash, i);
+                if(other != null && Integer.compareUnsigned(hash, 1 << 28) > 0) {
+                    first = other;
+                    second = i;
+                }
+            }
+            int collision = hash(first, seed);
+
+            //the first name of the pair is the last entry of the first leaf, and the second one starts the next leaf
+            List<Integer> before = new ArrayList<>(), after = new ArrayList<>();
+            for(int i = 0; before.size() < ENTRIES_PER_LEAF - 1 || after.size() < 20; i++) {
+                int hash = hash(i, seed);
+                if(hash == collision)
+                    continue;
+                if(Integer.compareUnsigned(hash, collision) < 0 && before.size() < ENTRIES_PER_LEAF - 1)
+                    before.add(i);
+                else if(Integer.compareUnsigned(hash, collision) > 0 && after.size() < 20)
+                    after.add(i);
+            }
+
+            int parent = generator.mkdir(Constants.ROOT_INODE_OFFSET, "collision");
+            Map<String, Integer> inodes = new HashMap<>();
+            List<Integer> names = new ArrayList<>(before);
+            names.add(first);
+            names.add(second);
+            names.addAll(after);
+            for(int i : names) {
+                String name = String.format(NAME_FORMAT, i);
+                inodes.put(name, generator.createFile(parent, name, 0));
+            }
+            generator.close();
+
+            try(Ext2FileSystem fileSystem = new Ext2FileSystem(image.toString())) {
+                Inode collisionDirectory = fileSystem.lookup("/collision");
+                assertTrue(collisionDirectory.isHashIndexed());
+                //the second leaf starts at the hash of the pair, with the bit that marks the collision
+                Ext2File ext2 = fileSystem.getExt2File();
+                ByteBuffer root = ext2.readMetadataBlock(collisionDirectory.getBlockMap().map(0, ext2),
+                        Metrics.DIRECTORY);
+                assertEquals(2, root.getShort(34));
+                assertEquals(collision | 1, root.getInt(40));
+
+                for(Map.Entry<String, Integer> entry : inodes.entrySet())
+                    assertEquals(entry.getValue(), lookup(fileSystem, entry.getKey(), collisionDirectory),
+                            entry.getKey());
+                for(int i = 0; i < 1000; i++) {
+                    String name = String.format(NAME_FORMAT, i);
+                    if(!inodes.containsKey(name))
+                        assertEquals(0, lookup(fileSystem, name, collisionDirectory), name);
+                }
+            }
+        }
+    }
+
+    private static int hash(int name, int[] seed) {
+        return HTree.hash(String.format(NAME_FORMAT, name).getBytes(StandardCharsets.US_ASCII), HTree.HALF_MD4, seed);
+    }
+
+    /**
+     *@return the inode number that the hash tree finds, which is never NOT_INDEXED, as every lookup must be
+     *answered by the tree
+     */
+    private static int lookup(Ext2FileSystem fileSystem, String name, Inode directory) throws IOException {
+        int inodeNumber = fileSystem.getExt2File().getHTree().lookup(name, directory, fileSystem.getExt2File());
+        assertTrue(inodeNumber != HTree.NOT_INDEXED, name + " fell back to a linear scan");
+        return inodeNumber;
+    }
+}
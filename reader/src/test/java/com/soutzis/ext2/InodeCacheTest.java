@@ -0,0 +1,82 @@
+package com.soutzis.ext2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ *Tests of the open-addressing table of the InodeCache: after every insertion, and every eviction that removes a key
+ *from the middle of a probe sequence, each key that is still cached must be found, and the evicted one must not be.
+ *@author Petros Soutzis
+ */
+class InodeCacheTest {
+
+    @Test
+    void findsEveryRemainingKeyAfterEvictions() {
+        Random random = new Random(42);
+        for(int capacity : new int[]{1, 2, 3, 7, 16, 33, 100}) {
+            InodeCache cache = new InodeCache(capacity);
+            Map<Integer, Inode> cached = new HashMap<>();
+            for(int i = 0; i < 5000; i++) {
+                //a small range of keys, so that keys are put again both while they are cached and after their eviction
+                int key = 1 + random.nextInt(capacity * 4);
+                Inode inode = new Inode(new byte[128]);
+                boolean evicts = !cached.containsKey(key) && cached.size() == capacity;
+                cache.put(key, inode);
+                cached.put(key, inode);
+
+                List<Integer> missing = new ArrayList<>();
+                for(Map.Entry<Integer, Inode> entry : cached.entrySet()) {
+                    Inode found = cache.get(entry.getKey());
+                    if(found == null)
+                        missing.add(entry.getKey());
+                    else
+                        assertSame(entry.getValue(), found, "inode " + entry.getKey());
+                }
+                //a put into a full cache replaces exactly one other inode, and nothing else goes missing
+                assertEquals(evicts ? 1 : 0, missing.size(), "capacity " + capacity + ", missing " + missing);
+                if(evicts) {
+                    int evicted = missing.get(0);
+                    assertNotEquals(key, evicted);
+                    cached.remove(evicted);
+                    assertNull(cache.get(evicted));
+                }
+            }
+        }
+    }
+
+    @Test
+    void keepsTheKeysThatWereUsedSinceTheLastPass() {
+        InodeCache cache = new InodeCache(4);
+        Inode[] inodes = new Inode[6];
+        for(int i = 1; i <= 5; i++)
+            inodes[i] = new Inode(new byte[128]);
+        for(int i = 1; i <= 4; i++)
+            cache.put(i, inodes[i]);
+        //1 and 3 get a second chance, so the clock hand passes over them and replaces 2
+        cache.get(1);
+        cache.get(3);
+        cache.put(5, inodes[5]);
+
+        assertNull(cache.get(2));
+        for(int i : new int[]{1, 3, 4, 5})
+            assertSame(inodes[i], cache.get(i));
+    }
+
+    @Test
+    void cachesNothingWithoutCapacity() {
+        InodeCache cache = new InodeCache(0);
+        cache.put(2, new Inode(new byte[128]));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.getMisses());
+    }
+}